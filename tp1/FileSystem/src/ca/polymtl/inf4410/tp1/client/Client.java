@@ -24,6 +24,7 @@ import java.util.Map;
 import java.util.UUID;
 
 import ca.polymtl.inf4410.tp1.shared.ServerInterface;
+import ca.polymtl.inf4410.tp1.shared.WireStatistics;
 
 public class Client {
 
@@ -265,6 +266,7 @@ public class Client {
 
 	private void run(String action, String argument) throws RemoteException {
 		if (action == null) return;
+		WireStatistics before = WireStatistics.current();
 		switch (action) {
 			case "create":
 				create(argument);
@@ -285,6 +287,19 @@ public class Client {
 				push(argument);
 				break;
 		}
+		printWireStatistics(before);
+	}
+
+	/**
+	 * Affiche le trafic des sockets instrumentés pendant l'opération,
+	 * si le serveur utilise InstrumentedSocketFactory.
+	 * @param before - Les compteurs avant l'opération.
+	 */
+	private void printWireStatistics(WireStatistics before) {
+		WireStatistics delta = WireStatistics.current().since(before);
+		if (delta.getBytesWritten() > 0 || delta.getBytesRead() > 0) {
+			System.out.println("Trafic: ".concat(delta.toString()));
+		}
 	}
 
 	private ServerInterface loadServerStub(String hostname){
@@ -18,6 +18,7 @@ import java.util.Map.Entry;
 import java.util.UUID;
 import javax.xml.bind.DatatypeConverter;
 
+import ca.polymtl.inf4410.tp1.shared.InstrumentedSocketFactory;
 import ca.polymtl.inf4410.tp1.shared.ServerInterface;
 
 public class Server implements ServerInterface {
@@ -43,8 +44,15 @@ public class Server implements ServerInterface {
 		}
 
 		try {
-			ServerInterface stub = (ServerInterface) UnicastRemoteObject
-					.exportObject(this, 0);
+			InstrumentedSocketFactory factory = InstrumentedSocketFactory
+					.fromProperties(System.getProperties());
+			ServerInterface stub;
+			if (factory == null) {
+				stub = (ServerInterface) UnicastRemoteObject.exportObject(this, 0);
+			} else {
+				stub = (ServerInterface) UnicastRemoteObject.exportObject(this,
+						0, factory, factory);
+			}
 
 			Registry registry = LocateRegistry.getRegistry();
 			registry.rebind("server", stub);
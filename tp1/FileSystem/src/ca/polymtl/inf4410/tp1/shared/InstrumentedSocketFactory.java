@@ -0,0 +1,183 @@
+package ca.polymtl.inf4410.tp1.shared;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.rmi.server.RMIClientSocketFactory;
+import java.rmi.server.RMIServerSocketFactory;
+import java.util.Properties;
+
+/*
+ * Fabrique de sockets RMI instrumentés. Les octets, les appels read/write et
+ * leur durée sont comptés dans WireStatistics, du côté client comme du côté
+ * serveur. La fabrique est sérialisée avec la souche : le client utilise donc
+ * les mêmes réglages de socket que le serveur.
+ *
+ * Propriétés système reconnues par fromProperties() :
+ * wire.instrument (active la fabrique), wire.tcpNoDelay, wire.sendBufferSize
+ * et wire.receiveBufferSize (0 pour la valeur par défaut du système).
+ */
+public class InstrumentedSocketFactory implements RMIClientSocketFactory,
+		RMIServerSocketFactory, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final boolean tcpNoDelay;
+	private final int sendBufferSize;
+	private final int receiveBufferSize;
+
+	public InstrumentedSocketFactory(boolean tcpNoDelay, int sendBufferSize,
+			int receiveBufferSize) {
+		super();
+		this.tcpNoDelay = tcpNoDelay;
+		this.sendBufferSize = sendBufferSize;
+		this.receiveBufferSize = receiveBufferSize;
+	}
+
+	/*
+	 * Retourne la fabrique décrite par les propriétés, ou null si
+	 * l'instrumentation n'est pas activée.
+	 */
+	public static InstrumentedSocketFactory fromProperties(Properties properties) {
+		if (!Boolean.parseBoolean(properties.getProperty("wire.instrument"))) {
+			return null;
+		}
+		return new InstrumentedSocketFactory(Boolean.parseBoolean(properties
+				.getProperty("wire.tcpNoDelay")), Integer.parseInt(properties
+				.getProperty("wire.sendBufferSize", "0")),
+				Integer.parseInt(properties.getProperty(
+						"wire.receiveBufferSize", "0")));
+	}
+
+	@Override
+	public Socket createSocket(String host, int port) throws IOException {
+		Socket socket = new InstrumentedSocket();
+		// Les tampons doivent être réglés avant la connexion pour influer sur
+		// la fenêtre TCP annoncée.
+		if (receiveBufferSize > 0) {
+			socket.setReceiveBufferSize(receiveBufferSize);
+		}
+		socket.connect(new InetSocketAddress(host, port));
+		configure(socket);
+		return socket;
+	}
+
+	@Override
+	public ServerSocket createServerSocket(int port) throws IOException {
+		ServerSocket serverSocket = new ServerSocket() {
+			@Override
+			public Socket accept() throws IOException {
+				Socket socket = new InstrumentedSocket();
+				implAccept(socket);
+				configure(socket);
+				return socket;
+			}
+		};
+		if (receiveBufferSize > 0) {
+			serverSocket.setReceiveBufferSize(receiveBufferSize);
+		}
+		serverSocket.bind(new InetSocketAddress(port));
+		return serverSocket;
+	}
+
+	private void configure(Socket socket) throws SocketException {
+		socket.setTcpNoDelay(tcpNoDelay);
+		if (sendBufferSize > 0) {
+			socket.setSendBufferSize(sendBufferSize);
+		}
+		WireStatistics.recordConnection();
+	}
+
+	/*
+	 * RMI partage les connexions entre souches dont les fabriques sont égales.
+	 */
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof InstrumentedSocketFactory)) {
+			return false;
+		}
+		InstrumentedSocketFactory factory = (InstrumentedSocketFactory) other;
+		return tcpNoDelay == factory.tcpNoDelay
+				&& sendBufferSize == factory.sendBufferSize
+				&& receiveBufferSize == factory.receiveBufferSize;
+	}
+
+	@Override
+	public int hashCode() {
+		return (tcpNoDelay ? 1 : 0) + 31 * sendBufferSize + 961
+				* receiveBufferSize;
+	}
+
+	/*
+	 * Socket dont les flux comptent les octets et les appels.
+	 */
+	private static class InstrumentedSocket extends Socket {
+		private InputStream input;
+		private OutputStream output;
+
+		@Override
+		public synchronized InputStream getInputStream() throws IOException {
+			if (input == null) {
+				input = new CountingInputStream(super.getInputStream());
+			}
+			return input;
+		}
+
+		@Override
+		public synchronized OutputStream getOutputStream() throws IOException {
+			if (output == null) {
+				output = new CountingOutputStream(super.getOutputStream());
+			}
+			return output;
+		}
+	}
+
+	private static class CountingInputStream extends FilterInputStream {
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			long start = System.nanoTime();
+			int b = in.read();
+			WireStatistics.recordRead(b < 0 ? 0 : 1, System.nanoTime() - start);
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			long start = System.nanoTime();
+			int n = in.read(b, off, len);
+			WireStatistics.recordRead(n, System.nanoTime() - start);
+			return n;
+		}
+	}
+
+	private static class CountingOutputStream extends FilterOutputStream {
+		CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			long start = System.nanoTime();
+			out.write(b);
+			WireStatistics.recordWrite(1, System.nanoTime() - start);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			long start = System.nanoTime();
+			out.write(b, off, len);
+			WireStatistics.recordWrite(len, System.nanoTime() - start);
+		}
+	}
+}
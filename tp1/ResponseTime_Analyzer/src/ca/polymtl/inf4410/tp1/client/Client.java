@@ -1,32 +1,89 @@
 package ca.polymtl.inf4410.tp1.client;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.rmi.AccessException;
 import java.rmi.NotBoundException;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
+import ca.polymtl.inf4410.tp1.shared.Payload;
 import ca.polymtl.inf4410.tp1.shared.ServerInterface;
+import ca.polymtl.inf4410.tp1.shared.WireStatistics;
+import ca.polymtl.inf4410.tp1.shared.WireProtocol;
 
 public class Client {
 	public static void main(String[] args) {
 		String distantHostname = null;
 		int eOctets = 0;
+		String mode = null;
 
 		if (args.length > 0) {
 			distantHostname = args[0];
 			eOctets = Integer.parseInt(args[1]);
 		}
+		if (args.length > 2) {
+			mode = args[2];
+		}
 
 		if (eOctets < 1 || eOctets > 7) {
 			throw new IllegalArgumentException("Le nombre d'octets doit etre entre 10^1 et 10^7");
 		}
 		Double nOctets = Math.pow(10, eOctets);
-		Byte[] payload = new Byte[nOctets.intValue()];
 
 		Client client = new Client(distantHostname);
-		client.run(payload);
+		if (mode == null) {
+			client.run(new Byte[nOctets.intValue()]);
+		} else if (mode.equals("payloads")) {
+			client.runPayloads(nOctets.intValue());
+		} else if (mode.equals("sweep")) {
+			boolean success = client.runSweep(eOctets,
+					parseOptions(Arrays.copyOfRange(args, 3, args.length)));
+			if (!success) {
+				System.exit(1);
+			}
+		} else if (mode.equals("transports")) {
+			client.runTransports(distantHostname, eOctets);
+		} else if (mode.equals("encodings")) {
+			client.runEncodings(nOctets.intValue());
+		} else if (mode.equals("load")) {
+			client.runLoad(nOctets.intValue(),
+					parseOptions(Arrays.copyOfRange(args, 3, args.length)));
+		} else {
+			throw new IllegalArgumentException("Mode inconnu: " + mode);
+		}
+	}
+
+	/*
+	 * Lit des options de la forme cle=valeur.
+	 */
+	private static Map<String, String> parseOptions(String[] args) {
+		Map<String, String> options = new HashMap<String, String>();
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (separator < 0) {
+				throw new IllegalArgumentException("Option invalide: " + arg);
+			}
+			options.put(arg.substring(0, separator), arg.substring(separator + 1));
+		}
+		return options;
+	}
+
+	private static String getOption(Map<String, String> options, String key,
+			String defaultValue) {
+		String value = options.get(key);
+		return value == null ? defaultValue : value;
 	}
 
 	FakeServer localServer = null; // Pour tester la latence d'un appel de
@@ -49,6 +106,11 @@ public class Client {
 		}
 	}
 
+	/*
+	 * Appels de base, inchangés depuis q1.xls : la même charge est passée deux
+	 * fois, donc RMI n'en transmet qu'une copie. Les autres modes passent deux
+	 * charges distinctes et ne se comparent pas directement à ces mesures.
+	 */
 	private void run(Byte[] payload) {
 		appelNormal(payload);
 
@@ -59,6 +121,282 @@ public class Client {
 		if (distantServerStub != null) {
 			appelRMIDistant(payload);
 		}
+
+		printServerWireStatistics();
+	}
+
+	/*
+	 * Affiche le trafic des sockets instrumentés pendant un appel, vu du
+	 * client. Rien n'est affiché si le serveur n'utilise pas la fabrique
+	 * InstrumentedSocketFactory.
+	 */
+	private void printWireStatistics(String label, WireStatistics before) {
+		WireStatistics delta = WireStatistics.current().since(before);
+		if (delta.getBytesWritten() > 0 || delta.getBytesRead() > 0) {
+			System.out.println("Trafic " + label + ": " + delta);
+		}
+	}
+
+	/*
+	 * Affiche les compteurs cumulés des sockets instrumentés des serveurs.
+	 */
+	private void printServerWireStatistics() {
+		ServerInterface[] stubs = { localServerStub, distantServerStub };
+		String[] targets = { "local", "distant" };
+		for (int i = 0; i < stubs.length; ++i) {
+			if (stubs[i] == null) {
+				continue;
+			}
+			try {
+				WireStatistics statistics = stubs[i].getWireStatistics();
+				if (statistics.getBytesRead() > 0) {
+					System.out.println("Trafic cumulé serveur " + targets[i]
+							+ ": " + statistics);
+				}
+			} catch (RemoteException e) {
+				System.out.println("Erreur: " + e.getMessage());
+			}
+		}
+	}
+
+	/*
+	 * Exécute le même appel avec chaque représentation de la charge utile
+	 * (Byte[], byte[], Externalizable, ByteBuffer direct).
+	 */
+	private void runPayloads(int size) {
+		for (PayloadVariant variant : PayloadVariant.all(size)) {
+			appelNormal(variant);
+
+			if (localServerStub != null) {
+				appelRMI(variant, localServerStub, "local");
+			}
+
+			if (distantServerStub != null) {
+				appelRMI(variant, distantServerStub, "distant");
+			}
+		}
+
+		printServerWireStatistics();
+	}
+
+	/*
+	 * Mesure tous les appels de 10^1 à 10^maxExponent octets, écrit le CSV et
+	 * le graphique, puis compare aux valeurs de référence. Options :
+	 * repetitions, output (CSV), graph (PNG), baseline (CSV de référence) et
+	 * threshold (régression tolérée en %). Seules les colonnes RMI sont
+	 * comparées : l'appel normal dure quelques microsecondes et varie trop
+	 * d'une exécution à l'autre. Retourne faux en cas de régression.
+	 * Le balayage passe deux charges distinctes alors que data_function.csv a
+	 * été mesuré avec la même charge deux fois, comme q1.xls : pour comparer
+	 * sans biais, régénérer la référence avec un balayage (option output).
+	 */
+	private boolean runSweep(int maxExponent, Map<String, String> options) {
+		int repetitions = Integer.parseInt(getOption(options, "repetitions",
+				"5"));
+		File output = new File(getOption(options, "output", "sweep.csv"));
+		File graph = new File(getOption(options, "graph", "sweep.png"));
+		File baselineFile = new File(getOption(options, "baseline",
+				"data_function.csv"));
+		double threshold = Double.parseDouble(getOption(options, "threshold",
+				"20"));
+
+		SweepTable table;
+		try {
+			table = new SweepRunner(localServer, localServerStub,
+					distantServerStub).run(maxExponent, repetitions);
+			table.write(output);
+			LineChart.render(table, "Temps de réponse", graph);
+			System.out.println("Résultats écrits dans " + output + " et "
+					+ graph);
+		} catch (IOException e) {
+			System.out.println("Erreur: " + e.getMessage());
+			return false;
+		}
+
+		if (!baselineFile.isFile()) {
+			System.out.println("Aucune référence " + baselineFile
+					+ ", comparaison ignorée.");
+			return true;
+		}
+		try {
+			List<String> regressions = table.regressions(
+					SweepTable.read(baselineFile),
+					Arrays.asList("rmi_local", "rmi_distant"), threshold);
+			for (String regression : regressions) {
+				System.out.println("Régression: " + regression);
+			}
+			if (regressions.isEmpty()) {
+				System.out.println("Aucune régression au-delà de " + threshold
+						+ " % par rapport à " + baselineFile);
+			}
+			return regressions.isEmpty();
+		} catch (IOException e) {
+			System.out.println("Erreur: " + e.getMessage());
+			return false;
+		}
+	}
+
+	/*
+	 * Balaie les tailles de 10^1 à 10^maxExponent octets sur chaque transport
+	 * (RMI, sockets bloquants, NIO et HTTP) et affiche les temps en CSV. Un
+	 * premier appel par transport établit la connexion hors mesure.
+	 */
+	private void runTransports(String hostname, int maxExponent) {
+		ServerInterface stub = distantServerStub != null ? distantServerStub
+				: localServerStub;
+		if (hostname == null || stub == null) {
+			System.out.println("Erreur: Aucun serveur disponible.");
+			return;
+		}
+
+		List<Transport> transports = new ArrayList<Transport>();
+		transports.add(Transport.rmi(stub));
+		try {
+			transports.add(Transport.socket("socket", hostname,
+					WireProtocol.SOCKET_PORT));
+			transports.add(Transport.socket("nio", hostname,
+					WireProtocol.NIO_PORT));
+			transports.add(Transport.http(hostname, WireProtocol.HTTP_PORT));
+		} catch (IOException e) {
+			System.out.println("Erreur: " + e.getMessage()
+					+ " (le serveur a-t-il été lancé avec 'transports' ?)");
+		}
+
+		StringBuilder header = new StringBuilder("x");
+		for (Transport transport : transports) {
+			header.append(',').append(transport.getName());
+			try {
+				transport.execute(new byte[1], new byte[1]);
+			} catch (IOException e) {
+				System.out.println("Erreur: " + e.getMessage());
+			}
+		}
+		System.out.println(header);
+
+		for (int exponent = 1; exponent <= maxExponent; ++exponent) {
+			byte[] payload = new byte[(int) Math.pow(10, exponent)];
+			// Deux tableaux distincts : RMI enverrait sinon le second comme une
+			// simple référence au premier, et transmettrait moitié moins
+			byte[] secondPayload = new byte[payload.length];
+			StringBuilder line = new StringBuilder().append(payload.length);
+			for (Transport transport : transports) {
+				line.append(',');
+				try {
+					long start = System.nanoTime();
+					transport.execute(payload, secondPayload);
+					long end = System.nanoTime();
+					line.append(end - start);
+				} catch (IOException e) {
+					System.out.println("Erreur: " + e.getMessage());
+				}
+			}
+			System.out.println(line);
+		}
+
+		for (Transport transport : transports) {
+			try {
+				transport.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	/*
+	 * Compare les encodages de la charge utile : taille sérialisée, temps de
+	 * sérialisation et de désérialisation, puis latence de bout en bout.
+	 * Les données sont pseudo-aléatoires sur 4 bits pour que la compression
+	 * ait un effet réaliste.
+	 */
+	private void runEncodings(int size) {
+		byte[] data = new byte[size];
+		Random random = new Random(0);
+		for (int i = 0; i < size; ++i) {
+			data[i] = (byte) random.nextInt(16);
+		}
+
+		for (PayloadEncoding encoding : PayloadEncoding.all()) {
+			Payload payload = encoding.encode(data);
+			try {
+				long start = System.nanoTime();
+				byte[] serialized = marshal(payload);
+				long marshalled = System.nanoTime();
+				unmarshal(serialized);
+				long unmarshalled = System.nanoTime();
+
+				System.out.println("Taille sérialisée [" + encoding.getName()
+						+ "]: " + serialized.length + " octets");
+				System.out.println("Temps de sérialisation ["
+						+ encoding.getName() + "]: " + (marshalled - start)
+						+ " ns");
+				System.out.println("Temps de désérialisation ["
+						+ encoding.getName() + "]: "
+						+ (unmarshalled - marshalled) + " ns");
+			} catch (IOException e) {
+				System.out.println("Erreur: " + e.getMessage());
+			} catch (ClassNotFoundException e) {
+				System.out.println("Erreur: " + e.getMessage());
+			}
+
+			PayloadVariant variant = PayloadVariant.encoded(
+					encoding.getName(), payload, encoding.encode(data));
+			if (localServerStub != null) {
+				appelRMI(variant, localServerStub, "local");
+			}
+
+			if (distantServerStub != null) {
+				appelRMI(variant, distantServerStub, "distant");
+			}
+		}
+	}
+
+	private static byte[] marshal(Object object) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(object);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	private static Object unmarshal(byte[] serialized) throws IOException,
+			ClassNotFoundException {
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(
+				serialized));
+		try {
+			return in.readObject();
+		} finally {
+			in.close();
+		}
+	}
+
+	/*
+	 * Génère une charge concurrente sur le serveur distant (ou local à défaut).
+	 * Options : threads, requests, duration (secondes), rate (requêtes/s, active
+	 * la boucle ouverte), virtual (true/false) et payload (boxed, primitive,
+	 * externalizable, direct).
+	 */
+	private void runLoad(int size, Map<String, String> options) {
+		ServerInterface stub = distantServerStub != null ? distantServerStub
+				: localServerStub;
+		if (stub == null) {
+			System.out.println("Erreur: Aucun serveur disponible.");
+			return;
+		}
+
+		int nbThreads = Integer.parseInt(getOption(options, "threads", "1"));
+		long requests = Long.parseLong(getOption(options, "requests", "0"));
+		long duration = Long.parseLong(getOption(options, "duration", "0"));
+		double rate = Double.parseDouble(getOption(options, "rate", "0"));
+		boolean virtual = Boolean.parseBoolean(getOption(options, "virtual",
+				"false"));
+		PayloadVariant variant = PayloadVariant.of(
+				getOption(options, "payload", "boxed"), size);
+
+		if (requests <= 0 && duration <= 0) {
+			requests = 1000;
+		}
+
+		new LoadGenerator(stub, variant, nbThreads, virtual).run(requests,
+				duration * 1000, rate);
 	}
 
 	private ServerInterface loadServerStub(String hostname) {
@@ -91,6 +429,7 @@ public class Client {
 
 	private void appelRMILocal(Byte[] payload) {
 		try {
+			WireStatistics before = WireStatistics.current();
 			long start = System.nanoTime();
 			int result = localServerStub.execute(payload, payload);
 			long end = System.nanoTime();
@@ -98,6 +437,7 @@ public class Client {
 			System.out.println("Temps écoulé appel RMI local: " + (end - start)
 					+ " ns");
 			System.out.println("Résultat appel RMI local: " + result);
+			printWireStatistics("appel RMI local", before);
 		} catch (RemoteException e) {
 			System.out.println("Erreur: " + e.getMessage());
 		}
@@ -105,6 +445,7 @@ public class Client {
 
 	private void appelRMIDistant(Byte[] payload) {
 		try {
+			WireStatistics before = WireStatistics.current();
 			long start = System.nanoTime();
 			int result = distantServerStub.execute(payload, payload);
 			long end = System.nanoTime();
@@ -112,6 +453,37 @@ public class Client {
 			System.out.println("Temps écoulé appel RMI distant: "
 					+ (end - start) + " ns");
 			System.out.println("Résultat appel RMI distant: " + result);
+			printWireStatistics("appel RMI distant", before);
+		} catch (RemoteException e) {
+			System.out.println("Erreur: " + e.getMessage());
+		}
+	}
+
+	private void appelNormal(PayloadVariant variant) {
+		long start = System.nanoTime();
+		int result = variant.execute(localServer);
+		long end = System.nanoTime();
+
+		System.out.println("Temps écoulé appel normal [" + variant.getName()
+				+ "]: " + (end - start) + " ns");
+		System.out.println("Résultat appel normal [" + variant.getName()
+				+ "]: " + result);
+	}
+
+	private void appelRMI(PayloadVariant variant, ServerInterface stub,
+			String target) {
+		try {
+			WireStatistics before = WireStatistics.current();
+			long start = System.nanoTime();
+			int result = variant.execute(stub);
+			long end = System.nanoTime();
+
+			System.out.println("Temps écoulé appel RMI " + target + " ["
+					+ variant.getName() + "]: " + (end - start) + " ns");
+			System.out.println("Résultat appel RMI " + target + " ["
+					+ variant.getName() + "]: " + result);
+			printWireStatistics("appel RMI " + target + " ["
+					+ variant.getName() + "]", before);
 		} catch (RemoteException e) {
 			System.out.println("Erreur: " + e.getMessage());
 		}
@@ -1,7 +1,27 @@
 package ca.polymtl.inf4410.tp1.client;
 
+import ca.polymtl.inf4410.tp1.shared.BytePayload;
+import ca.polymtl.inf4410.tp1.shared.DirectBufferPayload;
+import ca.polymtl.inf4410.tp1.shared.Payload;
+
 public class FakeServer {
 	int execute(Byte[] array1, Byte[] array2) {
 		return array1.length + array2.length;
 	}
+
+	int execute(byte[] array1, byte[] array2) {
+		return array1.length + array2.length;
+	}
+
+	int execute(BytePayload array1, BytePayload array2) {
+		return array1.length() + array2.length();
+	}
+
+	int execute(DirectBufferPayload array1, DirectBufferPayload array2) {
+		return array1.length() + array2.length();
+	}
+
+	int execute(Payload array1, Payload array2) {
+		return array1.length() + array2.length();
+	}
 }
@@ -0,0 +1,142 @@
+package ca.polymtl.inf4410.tp1.client;
+
+import java.io.PrintStream;
+
+/*
+ * Histogramme de latences à échelle log-linéaire (64 sous-intervalles par
+ * puissance de deux, soit une précision d'environ 3 %). Une instance n'est pas
+ * thread-safe : chaque fil d'exécution enregistre dans son propre histogramme
+ * et les histogrammes sont fusionnés à la fin.
+ */
+class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 6;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+	private static final int BUCKET_COUNT = SUB_BUCKET_HALF
+			* (64 - SUB_BUCKET_BITS + 1) + SUB_BUCKET_HALF;
+
+	private static final double[] PERCENTILES = { 50.0, 75.0, 90.0, 99.0,
+			99.9, 99.99 };
+
+	private final long[] counts = new long[BUCKET_COUNT];
+	private long totalCount = 0;
+	private long min = Long.MAX_VALUE;
+	private long max = 0;
+	private double sum = 0;
+
+	void record(long value) {
+		record(value, 1);
+	}
+
+	private void record(long value, long count) {
+		if (value < 0) {
+			value = 0;
+		}
+		counts[indexOf(value)] += count;
+		totalCount += count;
+		sum += (double) value * count;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	/*
+	 * Retourne une copie corrigée a posteriori pour un intervalle attendu.
+	 */
+	LatencyHistogram corrected(long expectedInterval) {
+		LatencyHistogram copy = new LatencyHistogram();
+		for (int i = 0; i < counts.length; ++i) {
+			if (counts[i] == 0) {
+				continue;
+			}
+			long value = valueOf(i);
+			copy.record(value, counts[i]);
+			if (expectedInterval <= 0) {
+				continue;
+			}
+			for (long missed = value - expectedInterval; missed >= expectedInterval; missed -= expectedInterval) {
+				copy.record(missed, counts[i]);
+			}
+		}
+		return copy;
+	}
+
+	void add(LatencyHistogram other) {
+		for (int i = 0; i < counts.length; ++i) {
+			counts[i] += other.counts[i];
+		}
+		totalCount += other.totalCount;
+		sum += other.sum;
+		if (other.totalCount > 0) {
+			min = Math.min(min, other.min);
+			max = Math.max(max, other.max);
+		}
+	}
+
+	long getTotalCount() {
+		return totalCount;
+	}
+
+	long getMax() {
+		return max;
+	}
+
+	double getMean() {
+		return totalCount == 0 ? 0 : sum / totalCount;
+	}
+
+	long percentile(double percentile) {
+		if (totalCount == 0) {
+			return 0;
+		}
+		long target = (long) Math.ceil(percentile / 100.0 * totalCount);
+		long cumulated = 0;
+		for (int i = 0; i < counts.length; ++i) {
+			cumulated += counts[i];
+			if (cumulated >= Math.max(target, 1)) {
+				return Math.min(highestEquivalentValue(i), max);
+			}
+		}
+		return max;
+	}
+
+	/*
+	 * Affiche la distribution des latences en microsecondes.
+	 */
+	void print(PrintStream out, String title) {
+		out.println(title + " (" + totalCount + " requêtes)");
+		if (totalCount == 0) {
+			return;
+		}
+		out.println(String.format("  min     %12.1f us", min / 1000.0));
+		out.println(String.format("  moyenne %12.1f us", getMean() / 1000.0));
+		for (double p : PERCENTILES) {
+			out.println(String.format("  p%-6s %12.1f us", formatPercentile(p),
+					percentile(p) / 1000.0));
+		}
+		out.println(String.format("  max     %12.1f us", max / 1000.0));
+	}
+
+	private static String formatPercentile(double p) {
+		return p == Math.floor(p) ? String.valueOf((long) p) : String
+				.valueOf(p);
+	}
+
+	private static int indexOf(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+		return SUB_BUCKET_HALF * shift + (int) (value >>> shift);
+	}
+
+	private static long valueOf(int index) {
+		int shift = index < SUB_BUCKET_COUNT ? 0 : index / SUB_BUCKET_HALF - 1;
+		return (long) (index - SUB_BUCKET_HALF * shift) << shift;
+	}
+
+	private static long highestEquivalentValue(int index) {
+		int shift = index < SUB_BUCKET_COUNT ? 0 : index / SUB_BUCKET_HALF - 1;
+		return valueOf(index) + (1L << shift) - 1;
+	}
+}
@@ -0,0 +1,117 @@
+package ca.polymtl.inf4410.tp1.client;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+/*
+ * Trace les colonnes d'une SweepTable sur des axes log-log et enregistre le
+ * graphique en PNG (équivalent de FunctionGraph.png).
+ */
+class LineChart {
+
+	private static final int WIDTH = 800;
+	private static final int HEIGHT = 500;
+	private static final int MARGIN = 70;
+	private static final Color[] COLORS = { new Color(0x1f77b4),
+			new Color(0xff7f0e), new Color(0x2ca02c), new Color(0xd62728),
+			new Color(0x9467bd) };
+
+	static void render(SweepTable table, String title, File file)
+			throws IOException {
+		System.setProperty("java.awt.headless", "true");
+		BufferedImage image = new BufferedImage(WIDTH, HEIGHT,
+				BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+				RenderingHints.VALUE_ANTIALIAS_ON);
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 0, WIDTH, HEIGHT);
+		g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 12));
+
+		Map<Integer, long[]> rows = table.getRows();
+		double minX = Math.log10(Math.max(1, firstKey(rows)));
+		double maxX = Math.log10(Math.max(10, lastKey(rows)));
+		double minY = 0;
+		double maxY = Math.ceil(Math.log10(Math.max(10, table.max())));
+		if (maxX <= minX) {
+			maxX = minX + 1;
+		}
+
+		// Axes et graduations (une par décade)
+		g.setColor(Color.BLACK);
+		g.drawLine(MARGIN, HEIGHT - MARGIN, WIDTH - MARGIN, HEIGHT - MARGIN);
+		g.drawLine(MARGIN, MARGIN, MARGIN, HEIGHT - MARGIN);
+		for (int e = (int) minX; e <= (int) maxX; ++e) {
+			int x = toPixel(e, minX, maxX, MARGIN, WIDTH - MARGIN);
+			g.drawLine(x, HEIGHT - MARGIN, x, HEIGHT - MARGIN + 5);
+			g.drawString("1e" + e, x - 10, HEIGHT - MARGIN + 20);
+		}
+		for (int e = (int) minY; e <= (int) maxY; ++e) {
+			int y = toPixel(e, minY, maxY, HEIGHT - MARGIN, MARGIN);
+			g.drawLine(MARGIN - 5, y, MARGIN, y);
+			g.drawString("1e" + e, MARGIN - 40, y + 4);
+		}
+		g.drawString("Taille des paramètres (octets)", WIDTH / 2 - 80,
+				HEIGHT - 20);
+		g.drawString("Temps (ns)", 10, MARGIN - 20);
+		g.drawString(title, WIDTH / 2 - 60, 30);
+
+		// Courbes et légende
+		List<String> columns = table.getColumns();
+		g.setStroke(new BasicStroke(2f));
+		for (int c = 0; c < columns.size(); ++c) {
+			g.setColor(COLORS[c % COLORS.length]);
+			int previousX = -1;
+			int previousY = -1;
+			for (Map.Entry<Integer, long[]> row : rows.entrySet()) {
+				if (c >= row.getValue().length || row.getValue()[c] <= 0) {
+					continue;
+				}
+				int x = toPixel(Math.log10(row.getKey()), minX, maxX, MARGIN,
+						WIDTH - MARGIN);
+				int y = toPixel(Math.log10(row.getValue()[c]), minY, maxY,
+						HEIGHT - MARGIN, MARGIN);
+				g.fillOval(x - 3, y - 3, 6, 6);
+				if (previousX >= 0) {
+					g.drawLine(previousX, previousY, x, y);
+				}
+				previousX = x;
+				previousY = y;
+			}
+			g.drawLine(WIDTH - MARGIN - 120, MARGIN + 20 * c, WIDTH - MARGIN
+					- 100, MARGIN + 20 * c);
+			g.drawString(columns.get(c), WIDTH - MARGIN - 95, MARGIN + 20 * c
+					+ 4);
+		}
+		g.dispose();
+
+		ImageIO.write(image, "png", file);
+	}
+
+	private static int toPixel(double value, double min, double max,
+			int from, int to) {
+		return (int) Math.round(from + (value - min) / (max - min) * (to - from));
+	}
+
+	private static int firstKey(Map<Integer, long[]> rows) {
+		return rows.isEmpty() ? 1 : rows.keySet().iterator().next();
+	}
+
+	private static int lastKey(Map<Integer, long[]> rows) {
+		int last = 1;
+		for (int key : rows.keySet()) {
+			last = key;
+		}
+		return last;
+	}
+}
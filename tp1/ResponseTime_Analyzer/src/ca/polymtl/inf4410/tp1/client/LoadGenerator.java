@@ -0,0 +1,168 @@
+package ca.polymtl.inf4410.tp1.client;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import ca.polymtl.inf4410.tp1.shared.ServerInterface;
+
+/*
+ * Générateur de charge concurrente sur un serveur RMI.
+ *
+ * En boucle fermée, chaque fil envoie sa requête suivante dès la réception de
+ * la réponse précédente. En boucle ouverte, les requêtes sont planifiées à un
+ * débit cible et la latence est mesurée depuis l'instant prévu d'envoi, ce qui
+ * corrige l'omission coordonnée lorsque le serveur ralentit.
+ */
+class LoadGenerator {
+
+	private final ServerInterface stub;
+	private final PayloadVariant variant;
+	private final int nbThreads;
+	private final ThreadFactory threadFactory;
+
+	private final AtomicLong issued = new AtomicLong();
+	private final AtomicLong errors = new AtomicLong();
+
+	LoadGenerator(ServerInterface stub, PayloadVariant variant, int nbThreads,
+			boolean virtualThreads) {
+		this.stub = stub;
+		this.variant = variant;
+		this.nbThreads = nbThreads;
+		this.threadFactory = virtualThreads ? virtualThreadFactory()
+				: platformThreadFactory();
+	}
+
+	/*
+	 * Lance la charge jusqu'à ce que maxRequests requêtes aient été envoyées
+	 * ou que la durée soit écoulée (0 pour ignorer une des limites). Un débit
+	 * cible positif (requêtes/s) active la boucle ouverte.
+	 */
+	void run(final long maxRequests, long durationMs, double targetRate) {
+		final long start = System.nanoTime();
+		final long deadline = durationMs > 0 ? start + durationMs * 1000000L
+				: Long.MAX_VALUE;
+		final long intervalNs = targetRate > 0 ? (long) (1e9 / targetRate) : 0;
+		final List<LatencyHistogram> histograms = new ArrayList<LatencyHistogram>();
+		final List<Thread> threads = new ArrayList<Thread>();
+
+		for (int i = 0; i < nbThreads; ++i) {
+			final LatencyHistogram histogram = new LatencyHistogram();
+			histograms.add(histogram);
+			threads.add(threadFactory.newThread(new Runnable() {
+				@Override
+				public void run() {
+					work(histogram, start, deadline, maxRequests, intervalNs);
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+
+		LatencyHistogram total = new LatencyHistogram();
+		for (LatencyHistogram histogram : histograms) {
+			total.add(histogram);
+		}
+		report(total, elapsed, intervalNs);
+	}
+
+	private void work(LatencyHistogram histogram, long start, long deadline,
+			long maxRequests, long intervalNs) {
+		while (true) {
+			long i = issued.getAndIncrement();
+			if (maxRequests > 0 && i >= maxRequests) {
+				return;
+			}
+
+			long begin;
+			if (intervalNs > 0) {
+				begin = start + i * intervalNs;
+				if (begin >= deadline) {
+					return;
+				}
+				long wait = begin - System.nanoTime();
+				if (wait > 0) {
+					LockSupport.parkNanos(wait);
+				}
+			} else {
+				begin = System.nanoTime();
+				if (begin >= deadline) {
+					return;
+				}
+			}
+
+			// Seules les requêtes réussies comptent dans le débit et les
+			// latences : un échec rapide fausserait les percentiles.
+			try {
+				variant.execute(stub);
+				histogram.record(System.nanoTime() - begin);
+			} catch (RemoteException e) {
+				errors.incrementAndGet();
+			}
+		}
+	}
+
+	private void report(LatencyHistogram histogram, long elapsedNs,
+			long intervalNs) {
+		long completed = histogram.getTotalCount();
+		double seconds = elapsedNs / 1e9;
+
+		System.out.println("Charge [" + variant.getName() + "]: " + nbThreads
+				+ " fils, " + (intervalNs > 0 ? "boucle ouverte" : "boucle fermée"));
+		System.out.println("Requêtes complétées: " + completed + " ("
+				+ errors.get() + " erreurs) en "
+				+ String.format("%.3f", seconds) + " s");
+		System.out.println("Débit: "
+				+ String.format("%.1f", completed / seconds) + " requêtes/s");
+
+		if (intervalNs > 0) {
+			// Les latences sont déjà mesurées depuis l'instant prévu d'envoi.
+			histogram.print(System.out, "Latences corrigées");
+		} else {
+			// En boucle fermée, l'intervalle attendu par fil est la latence
+			// médiane : les attentes plus longues ont retardé des requêtes.
+			histogram.print(System.out, "Latences mesurées");
+			histogram.corrected(histogram.percentile(50.0)).print(System.out,
+					"Latences corrigées");
+		}
+	}
+
+	private static ThreadFactory platformThreadFactory() {
+		return new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				return new Thread(runnable);
+			}
+		};
+	}
+
+	/*
+	 * Les fils virtuels n'existent qu'à partir de Java 21 : la fabrique est
+	 * obtenue par réflexion pour que le client compile sur les JDK plus
+	 * anciens, qui se rabattent sur des fils de plateforme.
+	 */
+	private static ThreadFactory virtualThreadFactory() {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			return (ThreadFactory) Class.forName("java.lang.Thread$Builder")
+					.getMethod("factory").invoke(builder);
+		} catch (Exception e) {
+			System.out.println("Fils virtuels non supportés par cette JVM, "
+					+ "utilisation de fils de plateforme.");
+			return platformThreadFactory();
+		}
+	}
+}
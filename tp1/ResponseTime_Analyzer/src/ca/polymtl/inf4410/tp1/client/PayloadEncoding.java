@@ -0,0 +1,57 @@
+package ca.polymtl.inf4410.tp1.client;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ca.polymtl.inf4410.tp1.shared.BytePayload;
+import ca.polymtl.inf4410.tp1.shared.CompressedPayload;
+import ca.polymtl.inf4410.tp1.shared.FramedPayload;
+import ca.polymtl.inf4410.tp1.shared.Payload;
+import ca.polymtl.inf4410.tp1.shared.SerializablePayload;
+
+/*
+ * Stratégie d'encodage d'une charge utile avant son passage par RMI.
+ */
+abstract class PayloadEncoding {
+
+	private final String name;
+
+	PayloadEncoding(String name) {
+		this.name = name;
+	}
+
+	String getName() {
+		return name;
+	}
+
+	abstract Payload encode(byte[] data);
+
+	static List<PayloadEncoding> all() {
+		List<PayloadEncoding> encodings = new ArrayList<PayloadEncoding>();
+		encodings.add(new PayloadEncoding("Serializable") {
+			@Override
+			Payload encode(byte[] data) {
+				return new SerializablePayload(data);
+			}
+		});
+		encodings.add(new PayloadEncoding("Externalizable") {
+			@Override
+			Payload encode(byte[] data) {
+				return new BytePayload(data);
+			}
+		});
+		encodings.add(new PayloadEncoding("Trame brute") {
+			@Override
+			Payload encode(byte[] data) {
+				return new FramedPayload(data);
+			}
+		});
+		encodings.add(new PayloadEncoding("Compressé") {
+			@Override
+			Payload encode(byte[] data) {
+				return new CompressedPayload(data);
+			}
+		});
+		return encodings;
+	}
+}
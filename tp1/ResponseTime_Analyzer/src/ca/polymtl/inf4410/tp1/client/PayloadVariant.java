@@ -0,0 +1,145 @@
+package ca.polymtl.inf4410.tp1.client;
+
+import java.nio.ByteBuffer;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+
+import ca.polymtl.inf4410.tp1.shared.BytePayload;
+import ca.polymtl.inf4410.tp1.shared.DirectBufferPayload;
+import ca.polymtl.inf4410.tp1.shared.Payload;
+import ca.polymtl.inf4410.tp1.shared.ServerInterface;
+
+/*
+ * Représentation d'une charge utile passée à execute(). Chaque variante
+ * appelle la surcharge correspondante, localement ou par RMI, avec deux
+ * charges distinctes : RMI enverrait sinon la seconde comme une simple
+ * référence à la première, et transmettrait moitié moins, contrairement aux
+ * transports comparés par runTransports.
+ */
+abstract class PayloadVariant {
+
+	private final String name;
+
+	PayloadVariant(String name) {
+		this.name = name;
+	}
+
+	String getName() {
+		return name;
+	}
+
+	abstract int execute(FakeServer server);
+
+	abstract int execute(ServerInterface stub) throws RemoteException;
+
+	/*
+	 * Construit toutes les représentations d'une charge de taille donnée.
+	 */
+	static List<PayloadVariant> all(int size) {
+		List<PayloadVariant> variants = new ArrayList<PayloadVariant>();
+		variants.add(boxed(new Byte[size], new Byte[size]));
+		variants.add(primitive(new byte[size], new byte[size]));
+		variants.add(externalizable(new BytePayload(new byte[size]),
+				new BytePayload(new byte[size])));
+		variants.add(directBuffer(new DirectBufferPayload(ByteBuffer
+				.allocateDirect(size)), new DirectBufferPayload(ByteBuffer
+				.allocateDirect(size))));
+		return variants;
+	}
+
+	/*
+	 * Construit la représentation nommée (boxed, primitive, externalizable
+	 * ou direct) d'une charge de taille donnée.
+	 */
+	static PayloadVariant of(String key, int size) {
+		if (key.equals("boxed")) {
+			return boxed(new Byte[size], new Byte[size]);
+		} else if (key.equals("primitive")) {
+			return primitive(new byte[size], new byte[size]);
+		} else if (key.equals("externalizable")) {
+			return externalizable(new BytePayload(new byte[size]),
+					new BytePayload(new byte[size]));
+		} else if (key.equals("direct")) {
+			return directBuffer(new DirectBufferPayload(ByteBuffer
+					.allocateDirect(size)), new DirectBufferPayload(ByteBuffer
+					.allocateDirect(size)));
+		}
+		throw new IllegalArgumentException("Représentation inconnue: " + key);
+	}
+
+	static PayloadVariant boxed(final Byte[] payload,
+			final Byte[] secondPayload) {
+		return new PayloadVariant("Byte[]") {
+			@Override
+			int execute(FakeServer server) {
+				return server.execute(payload, secondPayload);
+			}
+
+			@Override
+			int execute(ServerInterface stub) throws RemoteException {
+				return stub.execute(payload, secondPayload);
+			}
+		};
+	}
+
+	static PayloadVariant primitive(final byte[] payload,
+			final byte[] secondPayload) {
+		return new PayloadVariant("byte[]") {
+			@Override
+			int execute(FakeServer server) {
+				return server.execute(payload, secondPayload);
+			}
+
+			@Override
+			int execute(ServerInterface stub) throws RemoteException {
+				return stub.execute(payload, secondPayload);
+			}
+		};
+	}
+
+	static PayloadVariant externalizable(final BytePayload payload,
+			final BytePayload secondPayload) {
+		return new PayloadVariant("Externalizable") {
+			@Override
+			int execute(FakeServer server) {
+				return server.execute(payload, secondPayload);
+			}
+
+			@Override
+			int execute(ServerInterface stub) throws RemoteException {
+				return stub.execute(payload, secondPayload);
+			}
+		};
+	}
+
+	static PayloadVariant encoded(String name, final Payload payload,
+			final Payload secondPayload) {
+		return new PayloadVariant(name) {
+			@Override
+			int execute(FakeServer server) {
+				return server.execute(payload, secondPayload);
+			}
+
+			@Override
+			int execute(ServerInterface stub) throws RemoteException {
+				return stub.execute(payload, secondPayload);
+			}
+		};
+	}
+
+	static PayloadVariant directBuffer(final DirectBufferPayload payload,
+			final DirectBufferPayload secondPayload) {
+		return new PayloadVariant("ByteBuffer direct") {
+			@Override
+			int execute(FakeServer server) {
+				return server.execute(payload, secondPayload);
+			}
+
+			@Override
+			int execute(ServerInterface stub) throws RemoteException {
+				return stub.execute(payload, secondPayload);
+			}
+		};
+	}
+}
@@ -0,0 +1,76 @@
+package ca.polymtl.inf4410.tp1.client;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import ca.polymtl.inf4410.tp1.shared.ServerInterface;
+
+/*
+ * Mesure les trois types d'appel pour chaque taille de 10^1 à 10^N octets.
+ * Chaque mesure est la médiane de plusieurs répétitions.
+ */
+class SweepRunner {
+
+	private final FakeServer localServer;
+	private final List<String> columns = new ArrayList<String>();
+	private final List<ServerInterface> stubs = new ArrayList<ServerInterface>();
+
+	SweepRunner(FakeServer localServer, ServerInterface localServerStub,
+			ServerInterface distantServerStub) {
+		this.localServer = localServer;
+		columns.add("normal");
+		stubs.add(null);
+		if (localServerStub != null) {
+			columns.add("rmi_local");
+			stubs.add(localServerStub);
+		}
+		if (distantServerStub != null) {
+			columns.add("rmi_distant");
+			stubs.add(distantServerStub);
+		}
+	}
+
+	SweepTable run(int maxExponent, int repetitions) throws RemoteException {
+		SweepTable table = new SweepTable(columns);
+
+		// Un premier appel établit les connexions hors mesure.
+		Byte[] warmup = new Byte[1];
+		for (int c = 0; c < stubs.size(); ++c) {
+			measure(c, warmup, new Byte[1]);
+		}
+
+		for (int exponent = 1; exponent <= maxExponent; ++exponent) {
+			Byte[] payload = new Byte[(int) Math.pow(10, exponent)];
+			// Deux tableaux distincts, comme pour runTransports : RMI enverrait
+			// sinon le second comme une simple référence au premier
+			Byte[] secondPayload = new Byte[payload.length];
+			long[] medians = new long[columns.size()];
+			for (int c = 0; c < columns.size(); ++c) {
+				long[] samples = new long[repetitions];
+				for (int r = 0; r < repetitions; ++r) {
+					samples[r] = measure(c, payload, secondPayload);
+				}
+				Arrays.sort(samples);
+				medians[c] = samples[repetitions / 2];
+			}
+			table.put(payload.length, medians);
+			System.out.println(payload.length + " octets: "
+					+ Arrays.toString(medians) + " ns");
+		}
+		return table;
+	}
+
+	private long measure(int column, Byte[] payload, Byte[] secondPayload)
+			throws RemoteException {
+		ServerInterface stub = stubs.get(column);
+		long start = System.nanoTime();
+		if (stub == null) {
+			localServer.execute(payload, secondPayload);
+		} else {
+			stub.execute(payload, secondPayload);
+		}
+		return System.nanoTime() - start;
+	}
+}
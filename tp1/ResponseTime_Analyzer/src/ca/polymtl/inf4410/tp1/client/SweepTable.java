@@ -0,0 +1,136 @@
+package ca.polymtl.inf4410.tp1.client;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+ * Temps de réponse (ns) par taille de charge et par type d'appel, au format
+ * de data_function.csv : x,normal,rmi_local,rmi_distant.
+ */
+class SweepTable {
+
+	private final List<String> columns;
+	private final TreeMap<Integer, long[]> rows = new TreeMap<Integer, long[]>();
+
+	SweepTable(List<String> columns) {
+		this.columns = columns;
+	}
+
+	List<String> getColumns() {
+		return columns;
+	}
+
+	Map<Integer, long[]> getRows() {
+		return rows;
+	}
+
+	void put(int size, long[] values) {
+		rows.put(size, values);
+	}
+
+	/*
+	 * Retourne la valeur d'une colonne pour une taille, ou -1 si absente.
+	 */
+	long get(int size, String column) {
+		long[] values = rows.get(size);
+		int index = columns.indexOf(column);
+		if (values == null || index < 0 || index >= values.length) {
+			return -1;
+		}
+		return values[index];
+	}
+
+	long max() {
+		long max = 0;
+		for (long[] values : rows.values()) {
+			for (long value : values) {
+				max = Math.max(max, value);
+			}
+		}
+		return max;
+	}
+
+	static SweepTable read(File file) throws IOException {
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			String header = reader.readLine();
+			if (header == null) {
+				throw new IOException("Fichier vide: " + file);
+			}
+			List<String> names = Arrays.asList(header.trim().split(","));
+			SweepTable table = new SweepTable(new ArrayList<String>(names
+					.subList(1, names.size())));
+
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.trim().isEmpty()) {
+					continue;
+				}
+				String[] cells = line.trim().split(",");
+				long[] values = new long[cells.length - 1];
+				for (int i = 1; i < cells.length; ++i) {
+					values[i - 1] = Long.parseLong(cells[i]);
+				}
+				table.put(Integer.parseInt(cells[0]), values);
+			}
+			return table;
+		} finally {
+			reader.close();
+		}
+	}
+
+	void write(File file) throws IOException {
+		PrintWriter writer = new PrintWriter(new FileWriter(file));
+		try {
+			StringBuilder header = new StringBuilder("x");
+			for (String column : columns) {
+				header.append(',').append(column);
+			}
+			writer.print(header);
+			for (Map.Entry<Integer, long[]> row : rows.entrySet()) {
+				StringBuilder line = new StringBuilder().append(row.getKey());
+				for (long value : row.getValue()) {
+					line.append(',').append(value);
+				}
+				writer.print('\n');
+				writer.print(line);
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	/*
+	 * Compare chaque valeur à celle de la référence pour les colonnes
+	 * données et retourne les régressions dépassant le seuil (en %).
+	 */
+	List<String> regressions(SweepTable baseline, List<String> compared,
+			double thresholdPercent) {
+		List<String> regressions = new ArrayList<String>();
+		for (int size : rows.keySet()) {
+			for (String column : compared) {
+				long reference = baseline.get(size, column);
+				long value = get(size, column);
+				if (reference <= 0 || value < 0) {
+					continue;
+				}
+				double change = 100.0 * (value - reference) / reference;
+				if (change > thresholdPercent) {
+					regressions.add(column + " à " + size + " octets: " + value
+							+ " ns contre " + reference + " ns (+"
+							+ String.format("%.1f", change) + " %)");
+				}
+			}
+		}
+		return regressions;
+	}
+}
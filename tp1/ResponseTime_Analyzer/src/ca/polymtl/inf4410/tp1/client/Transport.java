@@ -0,0 +1,94 @@
+package ca.polymtl.inf4410.tp1.client;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+
+import ca.polymtl.inf4410.tp1.shared.ServerInterface;
+import ca.polymtl.inf4410.tp1.shared.WireProtocol;
+
+/*
+ * Moyen de transport d'un appel execute() vers le serveur.
+ */
+abstract class Transport {
+
+	private final String name;
+
+	Transport(String name) {
+		this.name = name;
+	}
+
+	String getName() {
+		return name;
+	}
+
+	abstract int execute(byte[] a1, byte[] a2) throws IOException;
+
+	void close() throws IOException {
+	}
+
+	static Transport rmi(final ServerInterface stub) {
+		return new Transport("rmi") {
+			@Override
+			int execute(byte[] a1, byte[] a2) throws IOException {
+				return stub.execute(a1, a2);
+			}
+		};
+	}
+
+	/*
+	 * Connexion TCP persistante vers SocketServer ou NioServer.
+	 */
+	static Transport socket(String name, String hostname, int port)
+			throws IOException {
+		final Socket socket = new Socket(hostname, port);
+		socket.setTcpNoDelay(true);
+		final DataInputStream in = new DataInputStream(new BufferedInputStream(
+				socket.getInputStream()));
+		final DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(socket.getOutputStream()));
+
+		return new Transport(name) {
+			@Override
+			int execute(byte[] a1, byte[] a2) throws IOException {
+				WireProtocol.writeRequest(out, a1, a2);
+				return in.readInt();
+			}
+
+			@Override
+			void close() throws IOException {
+				socket.close();
+			}
+		};
+	}
+
+	static Transport http(String hostname, int port) throws IOException {
+		final URL url = new URL("http", hostname, port, WireProtocol.HTTP_PATH);
+
+		return new Transport("http") {
+			@Override
+			int execute(byte[] a1, byte[] a2) throws IOException {
+				HttpURLConnection connection = (HttpURLConnection) url
+						.openConnection();
+				connection.setRequestMethod("POST");
+				connection.setDoOutput(true);
+				connection.setFixedLengthStreamingMode(8 + a1.length + a2.length);
+				WireProtocol.writeRequest(new DataOutputStream(connection
+						.getOutputStream()), a1, a2);
+
+				DataInputStream in = new DataInputStream(connection
+						.getInputStream());
+				try {
+					return in.readInt();
+				} finally {
+					in.close();
+				}
+			}
+		};
+	}
+}
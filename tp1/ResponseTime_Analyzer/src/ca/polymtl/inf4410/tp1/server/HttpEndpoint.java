@@ -0,0 +1,52 @@
+package ca.polymtl.inf4410.tp1.server;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+
+import ca.polymtl.inf4410.tp1.shared.WireProtocol;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/*
+ * Point d'accès HTTP : le corps d'une requête POST suit le même protocole
+ * que SocketServer et la réponse contient la somme sur 4 octets.
+ */
+public class HttpEndpoint {
+
+	private final HttpServer server;
+
+	public HttpEndpoint(int port) throws IOException {
+		super();
+		// Sans TCP_NODELAY, l'accusé de réception retardé ajoute ~40 ms par
+		// requête. La propriété est lue à la création du premier HttpServer.
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+		server = HttpServer.create(new InetSocketAddress(port), 0);
+		server.createContext(WireProtocol.HTTP_PATH, new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				try {
+					int result = WireProtocol.readRequest(new DataInputStream(
+							new BufferedInputStream(exchange.getRequestBody())));
+					exchange.sendResponseHeaders(200, 4);
+					DataOutputStream out = new DataOutputStream(exchange
+							.getResponseBody());
+					out.writeInt(result);
+					out.flush();
+				} finally {
+					exchange.close();
+				}
+			}
+		});
+		server.setExecutor(Executors.newCachedThreadPool());
+	}
+
+	public void start() {
+		server.start();
+	}
+}
@@ -0,0 +1,195 @@
+package ca.polymtl.inf4410.tp1.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/*
+ * Serveur NIO à un seul fil, basé sur un Selector. Il parle le même protocole
+ * que SocketServer ; les données reçues sont lues dans un tampon direct
+ * partagé et seules leurs longueurs sont conservées.
+ */
+public class NioServer implements Runnable {
+
+	private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+	private final Selector selector;
+	private final ServerSocketChannel serverChannel;
+	private final ByteBuffer readBuffer = ByteBuffer
+			.allocateDirect(READ_BUFFER_SIZE);
+
+	public NioServer(int port) throws IOException {
+		super();
+		selector = Selector.open();
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.configureBlocking(false);
+		serverChannel.socket().bind(new InetSocketAddress(port));
+		serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+	}
+
+	@Override
+	public void run() {
+		while (serverChannel.isOpen()) {
+			try {
+				selector.select();
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					try {
+						if (key.isAcceptable()) {
+							accept();
+						} else if (key.isReadable()) {
+							read(key);
+						} else if (key.isWritable()) {
+							write(key);
+						}
+					} catch (IOException e) {
+						key.cancel();
+						key.channel().close();
+					}
+				}
+			} catch (IOException e) {
+				System.err.println("Erreur: " + e.getMessage());
+			}
+		}
+	}
+
+	private void accept() throws IOException {
+		SocketChannel channel = serverChannel.accept();
+		if (channel == null) {
+			return;
+		}
+		channel.configureBlocking(false);
+		channel.socket().setTcpNoDelay(true);
+		channel.register(selector, SelectionKey.OP_READ, new Connection());
+	}
+
+	private void read(SelectionKey key) throws IOException {
+		SocketChannel channel = (SocketChannel) key.channel();
+		Connection connection = (Connection) key.attachment();
+
+		readBuffer.clear();
+		int n = channel.read(readBuffer);
+		if (n < 0) {
+			key.cancel();
+			channel.close();
+			return;
+		}
+		readBuffer.flip();
+		if (connection.consume(readBuffer)) {
+			// Les octets de la requête suivante sont gardés pour plus tard
+			connection.keep(readBuffer);
+			key.interestOps(SelectionKey.OP_WRITE);
+			write(key);
+		}
+	}
+
+	private void write(SelectionKey key) throws IOException {
+		SocketChannel channel = (SocketChannel) key.channel();
+		Connection connection = (Connection) key.attachment();
+
+		while (true) {
+			channel.write(connection.response);
+			if (connection.response.hasRemaining()) {
+				return;
+			}
+			connection.reset();
+			if (!connection.consumePending()) {
+				key.interestOps(SelectionKey.OP_READ);
+				return;
+			}
+		}
+	}
+
+	/*
+	 * État d'analyse d'une requête sur une connexion.
+	 */
+	private static class Connection {
+		private final ByteBuffer header = ByteBuffer.allocate(4);
+		private final ByteBuffer response = ByteBuffer.allocate(4);
+		private ByteBuffer pending = null;
+		private int arraysRead = 0;
+		private int remaining = -1;
+		private int sum = 0;
+
+		/*
+		 * Consomme les octets disponibles. Retourne vrai lorsque la requête
+		 * est complète et que la réponse est prête.
+		 */
+		boolean consume(ByteBuffer input) {
+			while (input.hasRemaining() && arraysRead < 2) {
+				if (remaining < 0) {
+					while (input.hasRemaining() && header.hasRemaining()) {
+						header.put(input.get());
+					}
+					if (header.hasRemaining()) {
+						return false;
+					}
+					header.flip();
+					remaining = header.getInt();
+					sum += remaining;
+					header.clear();
+				}
+				int skipped = Math.min(remaining, input.remaining());
+				input.position(input.position() + skipped);
+				remaining -= skipped;
+				if (remaining == 0) {
+					++arraysRead;
+					remaining = -1;
+				}
+			}
+			if (arraysRead < 2) {
+				return false;
+			}
+			response.clear();
+			response.putInt(sum);
+			response.flip();
+			return true;
+		}
+
+		/*
+		 * Copie les octets restants du tampon de lecture partagé, reçus
+		 * après une requête complète.
+		 */
+		void keep(ByteBuffer input) {
+			if (!input.hasRemaining()) {
+				return;
+			}
+			ByteBuffer kept = ByteBuffer.allocate((pending == null ? 0
+					: pending.remaining()) + input.remaining());
+			if (pending != null) {
+				kept.put(pending);
+			}
+			kept.put(input);
+			kept.flip();
+			pending = kept;
+		}
+
+		/*
+		 * Consomme les octets gardés. Retourne vrai lorsqu'une requête est
+		 * complète et que la réponse est prête.
+		 */
+		boolean consumePending() {
+			if (pending == null) {
+				return false;
+			}
+			boolean complete = consume(pending);
+			if (!pending.hasRemaining()) {
+				pending = null;
+			}
+			return complete;
+		}
+
+		void reset() {
+			arraysRead = 0;
+			remaining = -1;
+			sum = 0;
+		}
+	}
+}
@@ -1,18 +1,29 @@
 package ca.polymtl.inf4410.tp1.server;
 
+import java.io.IOException;
 import java.rmi.ConnectException;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
 
+import ca.polymtl.inf4410.tp1.shared.BytePayload;
+import ca.polymtl.inf4410.tp1.shared.DirectBufferPayload;
+import ca.polymtl.inf4410.tp1.shared.InstrumentedSocketFactory;
+import ca.polymtl.inf4410.tp1.shared.Payload;
 import ca.polymtl.inf4410.tp1.shared.ServerInterface;
+import ca.polymtl.inf4410.tp1.shared.WireProtocol;
+import ca.polymtl.inf4410.tp1.shared.WireStatistics;
 
 public class Server implements ServerInterface {
 
 	public static void main(String[] args) {
 		Server server = new Server();
 		server.run();
+
+		if (args.length > 0 && args[0].equals("transports")) {
+			server.runTransports();
+		}
 	}
 
 	public Server() {
@@ -25,8 +36,15 @@ public class Server implements ServerInterface {
 		}
 
 		try {
-			ServerInterface stub = (ServerInterface) UnicastRemoteObject
-					.exportObject(this, 0);
+			InstrumentedSocketFactory factory = InstrumentedSocketFactory
+					.fromProperties(System.getProperties());
+			ServerInterface stub;
+			if (factory == null) {
+				stub = (ServerInterface) UnicastRemoteObject.exportObject(this, 0);
+			} else {
+				stub = (ServerInterface) UnicastRemoteObject.exportObject(this,
+						0, factory, factory);
+			}
 
 			Registry registry = LocateRegistry.getRegistry();
 			registry.rebind("server", stub);
@@ -41,6 +59,29 @@ public class Server implements ServerInterface {
 		}
 	}
 
+	/*
+	 * Démarre les transports de comparaison (sockets bloquants, NIO et HTTP),
+	 * qui effectuent le même calcul qu'execute().
+	 */
+	private void runTransports() {
+		try {
+			startDaemon(new SocketServer(WireProtocol.SOCKET_PORT));
+			startDaemon(new NioServer(WireProtocol.NIO_PORT));
+			new HttpEndpoint(WireProtocol.HTTP_PORT).start();
+			System.out.println("Transports ready (socket " + WireProtocol.SOCKET_PORT
+					+ ", NIO " + WireProtocol.NIO_PORT + ", HTTP "
+					+ WireProtocol.HTTP_PORT + ").");
+		} catch (IOException e) {
+			System.err.println("Erreur: " + e.getMessage());
+		}
+	}
+
+	private void startDaemon(Runnable runnable) {
+		Thread thread = new Thread(runnable);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
 	/*
 	 * Méthode accessible par RMI. Additionne les deux nombres passés en
 	 * paramètre.
@@ -49,4 +90,45 @@ public class Server implements ServerInterface {
 	public int execute(Byte[] a0, Byte[] a1) throws RemoteException {
 		return a0.length + a1.length;
 	}
+
+	/*
+	 * Variante sur des tableaux d'octets primitifs.
+	 */
+	@Override
+	public int execute(byte[] a0, byte[] a1) throws RemoteException {
+		return a0.length + a1.length;
+	}
+
+	/*
+	 * Variante sur une enveloppe Externalizable.
+	 */
+	@Override
+	public int execute(BytePayload a0, BytePayload a1) throws RemoteException {
+		return a0.length() + a1.length();
+	}
+
+	/*
+	 * Variante sur des ByteBuffer directs.
+	 */
+	@Override
+	public int execute(DirectBufferPayload a0, DirectBufferPayload a1)
+			throws RemoteException {
+		return a0.length() + a1.length();
+	}
+
+	/*
+	 * Variante sur une charge utile d'encodage quelconque.
+	 */
+	@Override
+	public int execute(Payload a0, Payload a1) throws RemoteException {
+		return a0.length() + a1.length();
+	}
+
+	/*
+	 * Retourne les compteurs cumulés des sockets instrumentés du serveur.
+	 */
+	@Override
+	public WireStatistics getWireStatistics() throws RemoteException {
+		return WireStatistics.current();
+	}
 }
@@ -0,0 +1,68 @@
+package ca.polymtl.inf4410.tp1.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import ca.polymtl.inf4410.tp1.shared.WireProtocol;
+
+/*
+ * Serveur à sockets bloquants : un fil par connexion, plusieurs requêtes
+ * successives par connexion.
+ */
+public class SocketServer implements Runnable {
+
+	private final ServerSocket serverSocket;
+
+	public SocketServer(int port) throws IOException {
+		super();
+		serverSocket = new ServerSocket(port);
+	}
+
+	@Override
+	public void run() {
+		while (!serverSocket.isClosed()) {
+			try {
+				final Socket socket = serverSocket.accept();
+				Thread handler = new Thread(new Runnable() {
+					@Override
+					public void run() {
+						serve(socket);
+					}
+				});
+				handler.setDaemon(true);
+				handler.start();
+			} catch (IOException e) {
+				System.err.println("Erreur: " + e.getMessage());
+			}
+		}
+	}
+
+	private void serve(Socket socket) {
+		try {
+			socket.setTcpNoDelay(true);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(
+					socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(socket.getOutputStream()));
+			while (true) {
+				out.writeInt(WireProtocol.readRequest(in));
+				out.flush();
+			}
+		} catch (EOFException e) {
+			// Le client a fermé la connexion.
+		} catch (IOException e) {
+			System.err.println("Erreur: " + e.getMessage());
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package ca.polymtl.inf4410.tp1.shared;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/*
+ * Enveloppe Externalizable d'un tableau d'octets primitifs. Seuls la
+ * longueur et le contenu brut sont écrits dans le flux, sans description de
+ * classe pour chaque élément.
+ */
+public class BytePayload implements Externalizable, Payload {
+
+	private static final long serialVersionUID = 1L;
+
+	private byte[] data;
+
+	/*
+	 * Constructeur public sans argument requis par Externalizable.
+	 */
+	public BytePayload() {
+		this(new byte[0]);
+	}
+
+	public BytePayload(byte[] data) {
+		super();
+		this.data = data;
+	}
+
+	@Override
+	public int length() {
+		return data.length;
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeInt(data.length);
+		out.write(data);
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException {
+		data = new byte[in.readInt()];
+		in.readFully(data);
+	}
+}
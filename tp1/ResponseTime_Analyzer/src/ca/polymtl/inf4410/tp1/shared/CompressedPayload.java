@@ -0,0 +1,94 @@
+package ca.polymtl.inf4410.tp1.shared;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/*
+ * Charge utile compressée avec Deflate lors de la sérialisation et
+ * décompressée à la réception.
+ */
+public class CompressedPayload implements Externalizable, Payload {
+
+	private static final long serialVersionUID = 1L;
+
+	private byte[] data;
+
+	/*
+	 * Constructeur public sans argument requis par Externalizable.
+	 */
+	public CompressedPayload() {
+		this(new byte[0]);
+	}
+
+	public CompressedPayload(byte[] data) {
+		super();
+		this.data = data;
+	}
+
+	@Override
+	public int length() {
+		return data.length;
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		byte[] compressed = new byte[data.length + data.length / 1000 + 64];
+		int compressedLength;
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+			compressedLength = deflater.deflate(compressed);
+		} finally {
+			deflater.end();
+		}
+
+		out.writeInt(data.length);
+		out.writeInt(compressedLength);
+		out.write(compressed, 0, compressedLength);
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException {
+		data = new byte[in.readInt()];
+		byte[] compressed = new byte[in.readInt()];
+		in.readFully(compressed);
+
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(compressed);
+			int inflatedLength = 0;
+			byte[] overflow = new byte[1];
+			while (!inflater.finished()) {
+				int count = inflatedLength < data.length
+						? inflater.inflate(data, inflatedLength, data.length
+								- inflatedLength)
+						: inflater.inflate(overflow);
+				if (count > 0 && inflatedLength == data.length) {
+					throw new IOException(
+							"Charge compressée plus longue qu'annoncé: "
+									+ data.length + " octets attendus");
+				}
+				if (count == 0
+						&& (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				inflatedLength += count;
+			}
+			if (!inflater.finished() || inflatedLength != data.length) {
+				throw new IOException("Charge compressée tronquée: "
+						+ inflatedLength + " octets sur " + data.length);
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("Charge compressée invalide: "
+					+ e.getMessage());
+		} finally {
+			inflater.end();
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package ca.polymtl.inf4410.tp1.shared;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.ByteBuffer;
+
+/*
+ * Enveloppe d'un ByteBuffer direct. Un ByteBuffer n'est pas sérialisable :
+ * son contenu est copié par blocs entre la mémoire hors tas et le flux RMI,
+ * puis reconstruit dans un nouveau ByteBuffer direct à la réception.
+ */
+public class DirectBufferPayload implements Externalizable, Payload {
+
+	private static final long serialVersionUID = 1L;
+
+	// Taille du tampon de transfert entre le ByteBuffer et le flux.
+	private static final int CHUNK_SIZE = 8192;
+
+	private ByteBuffer buffer;
+
+	/*
+	 * Constructeur public sans argument requis par Externalizable.
+	 */
+	public DirectBufferPayload() {
+		this(ByteBuffer.allocateDirect(0));
+	}
+
+	public DirectBufferPayload(ByteBuffer buffer) {
+		super();
+		this.buffer = buffer;
+	}
+
+	@Override
+	public int length() {
+		return buffer.remaining();
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		ByteBuffer source = buffer.duplicate();
+		byte[] chunk = new byte[Math.min(CHUNK_SIZE, source.remaining())];
+
+		out.writeInt(source.remaining());
+		while (source.hasRemaining()) {
+			int n = Math.min(chunk.length, source.remaining());
+			source.get(chunk, 0, n);
+			out.write(chunk, 0, n);
+		}
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException {
+		int length = in.readInt();
+		byte[] chunk = new byte[Math.min(CHUNK_SIZE, length)];
+
+		buffer = ByteBuffer.allocateDirect(length);
+		while (buffer.hasRemaining()) {
+			int n = Math.min(chunk.length, buffer.remaining());
+			in.readFully(chunk, 0, n);
+			buffer.put(chunk, 0, n);
+		}
+		buffer.flip();
+	}
+}
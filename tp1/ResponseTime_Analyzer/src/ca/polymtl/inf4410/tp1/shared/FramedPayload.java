@@ -0,0 +1,51 @@
+package ca.polymtl.inf4410.tp1.shared;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/*
+ * Charge utile transmise comme une trame brute : la longueur sur 4 octets
+ * suivie des données, écrites directement dans le flux sans passer par la
+ * sérialisation par défaut des tableaux.
+ */
+public class FramedPayload implements Externalizable, Payload {
+
+	private static final long serialVersionUID = 1L;
+
+	private byte[] data;
+
+	/*
+	 * Constructeur public sans argument requis par Externalizable.
+	 */
+	public FramedPayload() {
+		this(new byte[0]);
+	}
+
+	public FramedPayload(byte[] data) {
+		super();
+		this.data = data;
+	}
+
+	@Override
+	public int length() {
+		return data.length;
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeInt(data.length);
+		out.write(data);
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			throw new IOException("Longueur de trame invalide: " + length);
+		}
+		data = new byte[length];
+		in.readFully(data);
+	}
+}
@@ -0,0 +1,13 @@
+package ca.polymtl.inf4410.tp1.shared;
+
+import java.io.Serializable;
+
+/*
+ * Charge utile transmise au serveur, quel que soit son encodage.
+ */
+public interface Payload extends Serializable {
+	/*
+	 * Retourne le nombre d'octets utiles de la charge.
+	 */
+	int length();
+}
@@ -0,0 +1,21 @@
+package ca.polymtl.inf4410.tp1.shared;
+
+/*
+ * Charge utile encodée par la sérialisation Java par défaut.
+ */
+public class SerializablePayload implements Payload {
+
+	private static final long serialVersionUID = 1L;
+
+	private final byte[] data;
+
+	public SerializablePayload(byte[] data) {
+		super();
+		this.data = data;
+	}
+
+	@Override
+	public int length() {
+		return data.length;
+	}
+}
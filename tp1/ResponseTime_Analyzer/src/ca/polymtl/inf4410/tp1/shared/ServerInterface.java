@@ -5,4 +5,14 @@ import java.rmi.RemoteException;
 
 public interface ServerInterface extends Remote {
 	int execute(Byte[] a1, Byte[] a2) throws RemoteException;
+
+	int execute(byte[] a1, byte[] a2) throws RemoteException;
+
+	int execute(BytePayload a1, BytePayload a2) throws RemoteException;
+
+	int execute(DirectBufferPayload a1, DirectBufferPayload a2) throws RemoteException;
+
+	int execute(Payload a1, Payload a2) throws RemoteException;
+
+	WireStatistics getWireStatistics() throws RemoteException;
 }
@@ -0,0 +1,41 @@
+package ca.polymtl.inf4410.tp1.shared;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/*
+ * Protocole commun aux transports autres que RMI. Une requête contient deux
+ * tableaux d'octets, chacun précédé de sa longueur sur 4 octets ; la réponse
+ * est la somme des longueurs sur 4 octets.
+ */
+public final class WireProtocol {
+
+	public static final int SOCKET_PORT = 5010;
+	public static final int NIO_PORT = 5011;
+	public static final int HTTP_PORT = 5012;
+	public static final String HTTP_PATH = "/execute";
+
+	private WireProtocol() {
+	}
+
+	public static void writeRequest(DataOutputStream out, byte[] a1, byte[] a2)
+			throws IOException {
+		out.writeInt(a1.length);
+		out.write(a1);
+		out.writeInt(a2.length);
+		out.write(a2);
+		out.flush();
+	}
+
+	/*
+	 * Lit une requête complète et retourne la somme des longueurs.
+	 */
+	public static int readRequest(DataInputStream in) throws IOException {
+		byte[] a1 = new byte[in.readInt()];
+		in.readFully(a1);
+		byte[] a2 = new byte[in.readInt()];
+		in.readFully(a2);
+		return a1.length + a2.length;
+	}
+}
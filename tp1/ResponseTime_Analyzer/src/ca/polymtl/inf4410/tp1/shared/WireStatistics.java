@@ -0,0 +1,97 @@
+package ca.polymtl.inf4410.tp1.shared;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Compteurs des sockets instrumentés de la JVM courante et instantanés de ces
+ * compteurs. Chaque appel read() ou write() sur le flux du socket correspond
+ * à un appel système. Le temps de lecture inclut l'attente des données du
+ * pair (réseau et traitement distant) ; le temps d'écriture correspond à la
+ * copie vers le noyau.
+ */
+public final class WireStatistics implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final AtomicLong CONNECTIONS = new AtomicLong();
+	private static final AtomicLong BYTES_READ = new AtomicLong();
+	private static final AtomicLong BYTES_WRITTEN = new AtomicLong();
+	private static final AtomicLong READS = new AtomicLong();
+	private static final AtomicLong WRITES = new AtomicLong();
+	private static final AtomicLong READ_NANOS = new AtomicLong();
+	private static final AtomicLong WRITE_NANOS = new AtomicLong();
+
+	private final long connections;
+	private final long bytesRead;
+	private final long bytesWritten;
+	private final long reads;
+	private final long writes;
+	private final long readNanos;
+	private final long writeNanos;
+
+	private WireStatistics(long connections, long bytesRead,
+			long bytesWritten, long reads, long writes, long readNanos,
+			long writeNanos) {
+		this.connections = connections;
+		this.bytesRead = bytesRead;
+		this.bytesWritten = bytesWritten;
+		this.reads = reads;
+		this.writes = writes;
+		this.readNanos = readNanos;
+		this.writeNanos = writeNanos;
+	}
+
+	/*
+	 * Retourne un instantané des compteurs de la JVM courante.
+	 */
+	public static WireStatistics current() {
+		return new WireStatistics(CONNECTIONS.get(), BYTES_READ.get(),
+				BYTES_WRITTEN.get(), READS.get(), WRITES.get(),
+				READ_NANOS.get(), WRITE_NANOS.get());
+	}
+
+	static void recordConnection() {
+		CONNECTIONS.incrementAndGet();
+	}
+
+	static void recordRead(long bytes, long nanos) {
+		READS.incrementAndGet();
+		READ_NANOS.addAndGet(nanos);
+		if (bytes > 0) {
+			BYTES_READ.addAndGet(bytes);
+		}
+	}
+
+	static void recordWrite(long bytes, long nanos) {
+		WRITES.incrementAndGet();
+		WRITE_NANOS.addAndGet(nanos);
+		BYTES_WRITTEN.addAndGet(bytes);
+	}
+
+	/*
+	 * Retourne la différence entre cet instantané et un instantané antérieur.
+	 */
+	public WireStatistics since(WireStatistics before) {
+		return new WireStatistics(connections - before.connections, bytesRead
+				- before.bytesRead, bytesWritten - before.bytesWritten, reads
+				- before.reads, writes - before.writes, readNanos
+				- before.readNanos, writeNanos - before.writeNanos);
+	}
+
+	public long getBytesRead() {
+		return bytesRead;
+	}
+
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	@Override
+	public String toString() {
+		return "connexions=" + connections + ", écrits=" + bytesWritten
+				+ " octets en " + writes + " write (" + writeNanos
+				+ " ns), lus=" + bytesRead + " octets en " + reads + " read ("
+				+ readNanos + " ns)";
+	}
+}
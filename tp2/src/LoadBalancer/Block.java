@@ -0,0 +1,121 @@
+package LoadBalancer;
+import java.rmi.RemoteException;
+
+import Server.ServerAPI;
+
+/**
+ * Instructions of a container claimed by a server: a range of indices, or a list of indices.
+ *
+ */
+public class Block {
+
+	// Member variables
+	private final int from;
+	private final int to;
+	private final int[] indices;
+	final ServerAPI owner;
+	volatile long sentAtNs = 0;
+	Block twin = null;
+	boolean isHedged = false;
+	volatile long requestId = 0;
+	volatile boolean isCancelled = false;
+
+	/**
+	 * Range constructor.
+	 * @param from The index of the first instruction (inclusive).
+	 * @param to The index of the last instruction (exclusive).
+	 * @param owner The server computing the block.
+	 */
+	Block(final int from, final int to, final ServerAPI owner) {
+		this.from = from;
+		this.to = to;
+		this.indices = null;
+		this.owner = owner;
+	}
+
+	/**
+	 * List constructor.
+	 * @param indices The indices of the instructions, in sending order.
+	 * @param owner The server computing the block.
+	 */
+	Block(final int[] indices, final ServerAPI owner) {
+		this.from = 0;
+		this.to = indices.length;
+		this.indices = indices;
+		this.owner = owner;
+	}
+
+	/**
+	 * Records the identifier of the server call computing the block, so that it can be cancelled.
+	 * @param requestId The request identifier.
+	 */
+	public void setRequestId(final long requestId) {
+		this.requestId = requestId;
+	}
+
+	/**
+	 * Records that the block is being sent to its server. 
+	 * Only the time since then counts towards lateness, not the time spent waiting for a server slot.
+	 */
+	void markSent() {
+		sentAtNs = System.nanoTime();
+	}
+
+	/**
+	 * Returns the time left before the block is late. A block not sent yet is counted as if sent now.
+	 * @param expectedNs The time the block should take, in nanoseconds.
+	 * @param now The current time, in nanoseconds.
+	 * @return The time left, in nanoseconds, 0 or less if the block is late.
+	 */
+	long getLateInNs(final long expectedNs, final long now) {
+		final long sentAt = sentAtNs;
+		return sentAt == 0 ? expectedNs : sentAt + expectedNs - now;
+	}
+
+	/**
+	 * Cancels the server call computing the block, if any. 
+	 * A block not sent yet is marked so that it is not sent.
+	 */
+	void cancel() {
+		isCancelled = true;
+		try {
+			owner.cancelOperations(requestId);
+		}
+		catch (final RemoteException e) {
+			// The server is unreachable: its call is lost anyway
+		}
+	}
+
+	/**
+	 * Returns the number of instructions.
+	 * @return The size of the block.
+	 */
+	public int size() {
+		return to - from;
+	}
+
+	/**
+	 * Returns the container index of an instruction of the block.
+	 * @param i The position of the instruction in the block.
+	 * @return The index of the instruction in the container.
+	 */
+	public int getIndex(final int i) {
+		return indices != null ? indices[i] : from + i;
+	}
+
+	/**
+	 * Returns the index of the first instruction of a range.
+	 * @return The index (inclusive).
+	 */
+	public int getFrom() {
+		return from;
+	}
+
+	/**
+	 * Returns the index after the last instruction of a range.
+	 * @return The index (exclusive).
+	 */
+	public int getTo() {
+		return to;
+	}
+}
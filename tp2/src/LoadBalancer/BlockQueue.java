@@ -0,0 +1,192 @@
+package LoadBalancer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import Server.ServerAPI;
+
+/**
+ * A shared queue of instruction blocks pulled by the ServerThreads in secure mode. 
+ * Blocks are cut to the size each server asks for, so faster servers take more of the work, 
+ * and never exceed the server's weighted share of the instructions left, split between its pipelined blocks, 
+ * so all servers finish together. 
+ * Once the queue is empty, an idle server steals the oldest block computing elsewhere for longer than expected 
+ * from the server latencies: both copies run, the first to complete settles the block and the other is cancelled. 
+ * Blocks of failed or rejected calls go back to the front of the queue.
+ *
+ */
+public class BlockQueue implements BlockSource {
+
+	// Member variables
+	private final ResultsContainer container;
+	private final ServerThroughput throughput;
+	private final Collection<ServerAPI> servers;
+	private final int pipelineDepth;
+	private final Deque<int[]> pending = new ArrayDeque<>();
+	private final List<Block> outstanding = new ArrayList<>();
+	private int unclaimed;
+
+	/**
+	 * Constructor.
+	 * @param container The ResultsContainer whose instructions are distributed.
+	 * @param throughput The capacities and throughputs weighting the servers.
+	 * @param servers The servers sharing the queue.
+	 * @param pipelineDepth The number of blocks each server computes at once.
+	 */
+	public BlockQueue(final ResultsContainer container, final ServerThroughput throughput,
+			final Collection<ServerAPI> servers, final int pipelineDepth) {
+		this.container = container;
+		this.throughput = throughput;
+		this.servers = servers;
+		this.pipelineDepth = Math.max(pipelineDepth, 1);
+		unclaimed = container.size();
+		if (!container.isEmpty()) {
+			pending.add(new int[] { 0, container.size() });
+		}
+	}
+
+	/**
+	 * Returns the container whose instructions are distributed.
+	 * @return The ResultsContainer.
+	 */
+	@Override
+	public ResultsContainer getContainer() {
+		return container;
+	}
+
+	/**
+	 * Claims the next block, or steals a late block from a slower server if the queue is empty. 
+	 * Waits while blocks of other servers may still become late.
+	 * @param maxSize The maximum number of instructions of the block.
+	 * @param owner The server claiming the block.
+	 * @param timeoutMs The maximum time to wait for a block, in milliseconds, or 0 for no limit.
+	 * @return The block, or null if there is nothing left to claim.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	@Override
+	public synchronized Block take(final int maxSize, final ServerAPI owner, final long timeoutMs)
+			throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + timeoutMs;
+		while (true) {
+			final int[] range = pending.pollFirst();
+			if (range != null) {
+				final int share = (int) Math.ceil(unclaimed * throughput.getShare(owner, servers) / pipelineDepth);
+				final int to = Math.min(range[1], range[0] + Math.max(Math.min(maxSize, share), 1));
+				unclaimed -= to - range[0];
+				if (to < range[1]) {
+					pending.addFirst(new int[] { to, range[1] });
+				}
+				final Block block = new Block(range[0], to, owner);
+				outstanding.add(block);
+				return block;
+			}
+			// Steal the oldest late block of another server, at most once
+			final long now = System.nanoTime();
+			Block laggard = null;
+			long nextLateNs = Long.MAX_VALUE;
+			boolean isStealable = false;
+			for (final Block block : outstanding) {
+				if (block.owner == owner || block.twin != null) {
+					continue;
+				}
+				isStealable = true;
+				// Without any measurement yet, no block is late: wait for completions instead
+				final long expectedNs = throughput.getExpectedLatencyNs(block.owner, block.size());
+				if (expectedNs == 0) {
+					continue;
+				}
+				final long lateInNs = block.getLateInNs(expectedNs, now);
+				if (lateInNs <= 0 && (laggard == null || block.sentAtNs < laggard.sentAtNs)) {
+					laggard = block;
+				}
+				nextLateNs = Math.min(nextLateNs, lateInNs);
+			}
+			if (laggard != null) {
+				final Block stolen = new Block(laggard.getFrom(), laggard.getTo(), owner);
+				stolen.twin = laggard;
+				laggard.twin = stolen;
+				outstanding.add(stolen);
+				return stolen;
+			}
+			if (!isStealable) {
+				return null;
+			}
+			// Wait for a block to complete or to become late
+			long waitMs = nextLateNs == Long.MAX_VALUE ? 0 : Math.max(TimeUnit.NANOSECONDS.toMillis(nextLateNs), 1);
+			if (timeoutMs > 0) {
+				final long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					return null;
+				}
+				waitMs = waitMs == 0 ? remaining : Math.min(waitMs, remaining);
+			}
+			wait(waitMs);
+		}
+	}
+
+	/**
+	 * Waits until every block is computed.
+	 * @param timeoutMs The maximum time to wait, in milliseconds.
+	 * @return true if every block is computed.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	@Override
+	public synchronized boolean awaitDone(final long timeoutMs) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + timeoutMs;
+		long remaining = timeoutMs;
+		while (!(pending.isEmpty() && outstanding.isEmpty()) && remaining > 0) {
+			wait(remaining);
+			remaining = deadline - System.currentTimeMillis();
+		}
+		return pending.isEmpty() && outstanding.isEmpty();
+	}
+
+	/**
+	 * Marks a block as computed: its results have been inserted in the container. 
+	 * Its copy, if still computing, is cancelled.
+	 * @param block The block.
+	 */
+	@Override
+	public void complete(final Block block) {
+		Block loser = null;
+		synchronized (this) {
+			outstanding.remove(block);
+			if (block.twin != null && outstanding.remove(block.twin)) {
+				loser = block.twin;
+			}
+			notifyAll();
+		}
+		if (loser != null) {
+			loser.cancel();
+		}
+	}
+
+	/**
+	 * Gives a block back to the queue, unless its stolen copy is still computing.
+	 * @param block The block that could not be computed.
+	 */
+	@Override
+	public synchronized void release(final Block block) {
+		if (!outstanding.remove(block)) {
+			// Already settled by its twin
+			return;
+		}
+		if (block.twin == null || !outstanding.contains(block.twin)) {
+			pending.addFirst(new int[] { block.getFrom(), block.getTo() });
+			unclaimed += block.size();
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Gives a rejected block back to the queue, like a failed one: any server, including its own, may claim it again.
+	 * @param block The rejected block.
+	 */
+	@Override
+	public void reject(final Block block) {
+		release(block);
+	}
+}
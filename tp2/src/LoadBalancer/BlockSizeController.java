@@ -0,0 +1,141 @@
+package LoadBalancer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import Server.ServerAPI;
+
+/**
+ * The block size of each server, learned with additive increase, multiplicative decrease (AIMD)
+ * and kept across rounds and executions.
+ * A server starts at its advertised capacity and doubles its block size after every full block until its first rejection (slow start).
+ * A rejection halves the block size, or lowers it to the free slots suggested by the server, and the halved size
+ * becomes the threshold above which the block size only grows by one instruction per full block.
+ *
+ */
+public class BlockSizeController {
+
+	// Constants
+	public static final int MAX_BLOCK_SIZE = 4096;
+
+	/**
+	 * The learned block size and statistics of a server.
+	 *
+	 */
+	private static class State {
+
+		private int blockSize;
+		private int threshold = MAX_BLOCK_SIZE;
+		private long successes = 0;
+		private long rejections = 0;
+
+		/**
+		 * Constructor.
+		 * @param blockSize The initial block size.
+		 */
+		State(final int blockSize) {
+			this.blockSize = blockSize;
+		}
+	}
+
+	// Member variables
+	private final Map<ServerAPI, State> states = new ConcurrentHashMap<>();
+
+	/**
+	 * Records the capacity advertised by a server, which is its initial block size if it was never seen.
+	 * @param server The server.
+	 * @param capacity The capacity.
+	 */
+	public void setCapacity(final ServerAPI server, final int capacity) {
+		states.computeIfAbsent(server, key -> new State(clamp(capacity)));
+	}
+
+	/**
+	 * Returns the block size to send to a server.
+	 * @param server The server.
+	 * @return The block size, 1 if the server was never seen.
+	 */
+	public int getBlockSize(final ServerAPI server) {
+		final State state = states.get(server);
+		if (state == null) {
+			return 1;
+		}
+		synchronized (state) {
+			return state.blockSize;
+		}
+	}
+
+	/**
+	 * Records a block accepted and computed by a server.
+	 * Only a block of the full block size makes it grow, since a smaller block does not probe the server's limit.
+	 * @param server The server.
+	 * @param size The number of instructions of the block.
+	 */
+	public void onSuccess(final ServerAPI server, final int size) {
+		final State state = states.computeIfAbsent(server, key -> new State(1));
+		synchronized (state) {
+			++state.successes;
+			if (size < state.blockSize) {
+				return;
+			}
+			if (state.blockSize < state.threshold) {
+				state.blockSize = Math.min(2 * state.blockSize, state.threshold);
+			}
+			else {
+				state.blockSize = clamp(state.blockSize + 1);
+			}
+		}
+	}
+
+	/**
+	 * Records a block rejected by a server.
+	 * @param server The server.
+	 * @param suggestedBlockSize The block size suggested by the server, or 0 if none.
+	 */
+	public void onRejected(final ServerAPI server, final int suggestedBlockSize) {
+		final State state = states.computeIfAbsent(server, key -> new State(1));
+		synchronized (state) {
+			++state.rejections;
+			state.threshold = clamp(state.blockSize / 2);
+			state.blockSize = suggestedBlockSize > 0 ? clamp(Math.min(suggestedBlockSize, state.threshold)) : state.threshold;
+		}
+	}
+
+	/**
+	 * Returns the number of blocks a server computed.
+	 * @param server The server.
+	 * @return The number of blocks.
+	 */
+	public long getSuccessCount(final ServerAPI server) {
+		final State state = states.get(server);
+		if (state == null) {
+			return 0;
+		}
+		synchronized (state) {
+			return state.successes;
+		}
+	}
+
+	/**
+	 * Returns the number of blocks a server rejected.
+	 * @param server The server.
+	 * @return The number of rejections.
+	 */
+	public long getRejectionCount(final ServerAPI server) {
+		final State state = states.get(server);
+		if (state == null) {
+			return 0;
+		}
+		synchronized (state) {
+			return state.rejections;
+		}
+	}
+
+	/**
+	 * Bounds a block size between 1 and MAX_BLOCK_SIZE.
+	 * @param blockSize The block size.
+	 * @return The bounded block size.
+	 */
+	private static int clamp(final int blockSize) {
+		return Math.max(1, Math.min(blockSize, MAX_BLOCK_SIZE));
+	}
+}
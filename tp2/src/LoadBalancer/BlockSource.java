@@ -0,0 +1,52 @@
+package LoadBalancer;
+import Server.ServerAPI;
+
+/**
+ * A source of instruction blocks shared by the ServerThreads of a round.
+ *
+ */
+public interface BlockSource {
+
+	/**
+	 * Returns the container whose instructions are distributed.
+	 * @return The ResultsContainer.
+	 */
+	ResultsContainer getContainer();
+
+	/**
+	 * Claims the next block for a server.
+	 * @param maxSize The maximum number of instructions of the block.
+	 * @param server The server claiming the block.
+	 * @param timeoutMs The maximum time to wait for a block, in milliseconds, or 0 for no limit.
+	 * @return The block, or null if there is nothing left for the server.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	Block take(int maxSize, ServerAPI server, long timeoutMs) throws InterruptedException;
+
+	/**
+	 * Waits until every instruction is settled.
+	 * @param timeoutMs The maximum time to wait, in milliseconds.
+	 * @return true if every instruction is settled.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	boolean awaitDone(long timeoutMs) throws InterruptedException;
+
+	/**
+	 * Marks a block as computed: its results have been inserted in the container.
+	 * @param block The block.
+	 */
+	void complete(Block block);
+
+	/**
+	 * Gives back a block that could not be computed.
+	 * @param block The block.
+	 */
+	void release(Block block);
+
+	/**
+	 * Gives back a block rejected by its server for lack of free slots. 
+	 * Unlike a failure, the server is not held responsible and may be sent the instructions again.
+	 * @param block The block.
+	 */
+	void reject(Block block);
+}
@@ -0,0 +1,154 @@
+package LoadBalancer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import Server.ServerAPI;
+
+/**
+ * Shares the servers between concurrent executions with weighted fair queuing (WFQ).
+ * Each server accepts a fixed number of blocks at once, whatever the number of executions.
+ * When blocks of several executions wait for the same server, the next slot goes to the execution
+ * with the smallest virtual time, which grows by the instructions it sent divided by its weight.
+ * A large execution thus cannot starve a small one: both get the servers in proportion to their weights.
+ * An execution becoming active again starts at the current virtual time, so that it cannot accumulate credit while idle.
+ *
+ */
+public class FairScheduler {
+
+	/**
+	 * An execution sharing the servers.
+	 *
+	 */
+	public final class Job {
+
+		private final double weight;
+		private double virtualTime;
+
+		/**
+		 * Constructor.
+		 * @param weight The share of the servers relative to the other executions.
+		 */
+		private Job(final double weight) {
+			this.weight = weight;
+		}
+
+		/**
+		 * Waits for a free slot on a server, granted fairly between executions.
+		 * @param server The server.
+		 * @param timeoutMs The maximum time to wait, in milliseconds, or 0 for no limit.
+		 * @return true if the slot was granted, false if the time ran out.
+		 * @throws InterruptedException If interrupted while waiting.
+		 */
+		public boolean acquire(final ServerAPI server, final long timeoutMs) throws InterruptedException {
+			return FairScheduler.this.acquire(this, server, timeoutMs);
+		}
+
+		/**
+		 * Frees a slot on a server and charges the execution for the instructions it sent.
+		 * @param server The server.
+		 * @param instructions The number of instructions sent.
+		 */
+		public void release(final ServerAPI server, final int instructions) {
+			FairScheduler.this.release(this, server, instructions);
+		}
+	}
+
+	// Member variables
+	private final int slotsPerServer;
+	private final Map<ServerAPI, Integer> busySlots = new HashMap<>();
+	private final Map<ServerAPI, List<Job>> waiting = new HashMap<>();
+	private double virtualTime = 0;
+
+	/**
+	 * Constructor.
+	 * @param slotsPerServer The number of blocks a server computes at once, all executions included.
+	 */
+	public FairScheduler(final int slotsPerServer) {
+		this.slotsPerServer = Math.max(slotsPerServer, 1);
+	}
+
+	/**
+	 * Registers a new execution.
+	 * @param weight The share of the servers relative to the other executions.
+	 * @return The execution.
+	 * @throws IllegalArgumentException If the weight is not positive.
+	 */
+	public synchronized Job register(final double weight) throws IllegalArgumentException {
+		if (!(weight > 0)) {
+			throw new IllegalArgumentException("Weight must be positive");
+		}
+		final Job job = new Job(weight);
+		job.virtualTime = virtualTime;
+		return job;
+	}
+
+	/**
+	 * Waits until a server has a free slot and no execution waiting for it is behind the specified one.
+	 * @param job The execution.
+	 * @param server The server.
+	 * @param timeoutMs The maximum time to wait, in milliseconds, or 0 for no limit.
+	 * @return true if the slot was granted, false if the time ran out.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	private synchronized boolean acquire(final Job job, final ServerAPI server, final long timeoutMs)
+			throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + timeoutMs;
+		// An execution idle until now starts at the current virtual time
+		job.virtualTime = Math.max(job.virtualTime, virtualTime);
+		final List<Job> queue = waiting.computeIfAbsent(server, key -> new ArrayList<>());
+		queue.add(job);
+		try {
+			while (busySlots.getOrDefault(server, 0) >= slotsPerServer || !isNext(job, queue)) {
+				if (timeoutMs > 0) {
+					final long remaining = deadline - System.currentTimeMillis();
+					if (remaining <= 0) {
+						return false;
+					}
+					wait(remaining);
+				}
+				else {
+					wait();
+				}
+			}
+			busySlots.merge(server, 1, Integer::sum);
+			virtualTime = Math.max(virtualTime, job.virtualTime);
+			return true;
+		}
+		finally {
+			queue.remove(job);
+			if (queue.isEmpty()) {
+				waiting.remove(server);
+			}
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Frees a slot on a server and charges an execution for the instructions it sent.
+	 * @param job The execution.
+	 * @param server The server.
+	 * @param instructions The number of instructions sent.
+	 */
+	private synchronized void release(final Job job, final ServerAPI server, final int instructions) {
+		job.virtualTime += instructions / job.weight;
+		busySlots.computeIfPresent(server, (key, busy) -> busy > 1 ? busy - 1 : null);
+		notifyAll();
+	}
+
+	/**
+	 * Checks whether an execution has the smallest virtual time amongst those waiting for a server.
+	 * @param job The execution.
+	 * @param queue The executions waiting for the server.
+	 * @return true if no waiting execution is behind the specified one.
+	 */
+	private static boolean isNext(final Job job, final List<Job> queue) {
+		for (final Job other : queue) {
+			if (other.virtualTime < job.virtualTime) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,104 @@
+package LoadBalancer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * A lazy reader of instructions files, one instruction per line. 
+ * The file is memory-mapped by chunks, so that files of any size are read with bounded memory. 
+ * Empty lines are skipped.
+ *
+ */
+public class InstructionReader implements Closeable {
+
+	// Constants
+	private static final long CHUNK_SIZE = 64L << 20; // 64 MB
+
+	// Member variables
+	private final FileChannel channel;
+	private final long size;
+	private long chunkPosition = 0;
+	private MappedByteBuffer chunk = null;
+	private final StringBuilder line = new StringBuilder();
+
+	/**
+	 * Constructor.
+	 * @param path The path of the instructions file.
+	 * @throws IOException If the file cannot be opened.
+	 */
+	public InstructionReader(final Path path) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		size = channel.size();
+	}
+
+	/**
+	 * Reads the next instructions.
+	 * @param maxCount The maximum number of instructions to read.
+	 * @return The instructions, empty at the end of the file.
+	 * @throws IOException If an error occurred when reading the file.
+	 */
+	public ArrayList<String> read(final int maxCount) throws IOException {
+		final ArrayList<String> instructions = new ArrayList<>(Math.min(maxCount, 1 << 16));
+		String instruction;
+		while (instructions.size() < maxCount && (instruction = nextLine()) != null) {
+			if (!instruction.isEmpty()) {
+				instructions.add(instruction);
+			}
+		}
+		return instructions;
+	}
+
+	/**
+	 * Reads the next line, mapping the next chunk of the file when needed.
+	 * @return The line without its line terminator, or null at the end of the file.
+	 * @throws IOException If an error occurred when mapping the file.
+	 */
+	private String nextLine() throws IOException {
+		line.setLength(0);
+		boolean isEmpty = true;
+		while (true) {
+			if (chunk == null || !chunk.hasRemaining()) {
+				if (chunk != null) {
+					chunkPosition += chunk.capacity();
+				}
+				if (chunkPosition >= size) {
+					chunk = null;
+					return isEmpty ? null : trimmedLine();
+				}
+				chunk = channel.map(FileChannel.MapMode.READ_ONLY, chunkPosition, Math.min(CHUNK_SIZE, size - chunkPosition));
+			}
+			final byte b = chunk.get();
+			isEmpty = false;
+			if (b == '\n') {
+				return trimmedLine();
+			}
+			line.append((char) (b & 0xFF));
+		}
+	}
+
+	/**
+	 * Returns the current line without a trailing carriage return.
+	 * @return The line.
+	 */
+	private String trimmedLine() {
+		final int length = line.length();
+		if (length > 0 && line.charAt(length - 1) == '\r') {
+			line.setLength(length - 1);
+		}
+		return line.toString();
+	}
+
+	/**
+	 * Closes the file.
+	 * @throws IOException If an error occurred when closing the file.
+	 */
+	@Override
+	public void close() throws IOException {
+		chunk = null;
+		channel.close();
+	}
+}
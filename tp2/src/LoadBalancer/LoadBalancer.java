@@ -1,6 +1,5 @@
 package LoadBalancer;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.rmi.ConnectException;
 import java.rmi.NotBoundException;
@@ -8,24 +7,43 @@ import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import Server.MembershipAPI;
 import Server.ServerAPI;
+import Server.ServerLoad;
 
 import java.io.InputStream;
 import java.io.FileInputStream;
 
 /**
  * The Load Balancer starts computations on multiple servers. 
- * It scales up and down requests to optimize servers capacity. 
- * In secure mode with N servers, each server computes 1/N of the computations. 
- * In non-secure mode, every servers compute all the computations. 
- * In that case, the Load Balancer ensures that the returned results are "good".
+ * It scales up and down requests to optimize servers capacity: 
+ * the block size of each server is learned from its rejections and kept across executions. 
+ * In secure mode, servers pull blocks of computations from a shared queue, so faster servers compute more of them. 
+ * Blocks are bounded by each server's share of the remaining work, weighted by its capacity and measured throughput. 
+ * In non-secure mode, each computation is sent to just enough servers to reach a majority, 
+ * and to one more server only while their results disagree. 
+ * In that case, the Load Balancer ensures that the returned results are "good". 
+ * Concurrent executions share the servers through a weighted fair queuing scheduler. 
+ * Servers are the configured hostnames plus those registering themselves, which send heartbeats. 
+ * Failed servers are probed and admitted again once they answer.
  *
  */
-public class LoadBalancer implements LoadBalancerAPI, ServerThreadCallback {
+public class LoadBalancer implements LoadBalancerAPI, MembershipAPI, ServerThreadCallback {
 
 	// Configuration files and operations directory
 	public static final String CONFIG_LB_FILE      = "../config/loadBalancer.properties";
@@ -33,14 +51,37 @@ public class LoadBalancer implements LoadBalancerAPI, ServerThreadCallback {
 	public static final String OPERATIONS_DIR_PATH = "../config/operations/";
 
 	// Constants
-	private static final int TIMEOUT_MS  = 10000; // 10 seconds
-	private static final int MAX_NB_RUNS = 300;
+	private static final int TIMEOUT_MS          = 10000; // 10 seconds
+	private static final int MAX_NB_RUNS         = 300;
+	private static final long DONE_POLL_MS       = 50;
+	private static final int DEFAULT_WINDOW_SIZE = 100000;
+	private static final int DEFAULT_PIPELINE_DEPTH = 2;
+	private static final double DEFAULT_WEIGHT      = 1;
+	private static final long DEFAULT_HEARTBEAT_TIMEOUT_MS = 5000;
+	private static final long PROBE_INTERVAL_MS     = 1000;
+	private static final long FORGET_FAILED_MS      = 600000; // 10 minutes
 
 	// Member variables
-	private final List<ServerAPI> servers = new ArrayList<>();
+	// Copy-on-write since servers join and fail while executions take snapshots of the list
+	private final CopyOnWriteArrayList<ServerAPI> servers = new CopyOnWriteArrayList<>();
+	private final List<String> hostnames = new CopyOnWriteArrayList<>();
+	private final Map<String, ServerAPI> configuredServers = new ConcurrentHashMap<>();
+	private final Map<ServerAPI, Long> heartbeats = new ConcurrentHashMap<>();
+	private final Map<ServerAPI, Long> failedServers = new ConcurrentHashMap<>();
+	// Servers and hostnames with a probe in progress, so that a slow one is not probed twice at once
+	private final Set<ServerAPI> probingServers = ConcurrentHashMap.newKeySet();
+	private final Set<String> probingHostnames = ConcurrentHashMap.newKeySet();
 	private final int portRmi;
 	private final int portLoadBalancer;
 	private final boolean isSecure;
+	private final boolean isStreaming;
+	private final int windowSize;
+	private final int pipelineDepth;
+	private final long heartbeatTimeoutMs;
+	private final ExecutorService dispatcher = createDispatcher();
+	private final ServerThroughput throughput = new ServerThroughput();
+	private final BlockSizeController controller = new BlockSizeController();
+	private final FairScheduler scheduler;
 
 	/**
 	 * Program entry point.
@@ -58,10 +99,18 @@ public class LoadBalancer implements LoadBalancerAPI, ServerThreadCallback {
 		int portRmi = 0;
 		int portLoadBalancer = 0;
 		boolean isSecure = false;
+		boolean isStreaming = false;
+		int windowSize = 0;
+		int pipelineDepth = 0;
+		long heartbeatTimeoutMs = 0;
 		try {
 			portRmi = getRmiPortFromConfig();
 			portLoadBalancer = getLbPortFromConfig();
 			isSecure = getSecureModeFromConfig();
+			isStreaming = getStreamingModeFromConfig();
+			windowSize = getWindowSizeFromConfig();
+			pipelineDepth = getPipelineDepthFromConfig();
+			heartbeatTimeoutMs = getHeartbeatTimeoutFromConfig();
 		}
 		catch (final IOException | NumberFormatException e) {
 			System.err.println("Could not read config file: " + e.getMessage());
@@ -70,7 +119,13 @@ public class LoadBalancer implements LoadBalancerAPI, ServerThreadCallback {
 		this.portRmi = portRmi;
 		this.portLoadBalancer = portLoadBalancer;
 		this.isSecure = isSecure;
+		this.isStreaming = isStreaming;
+		this.windowSize = windowSize;
+		this.pipelineDepth = pipelineDepth;
+		this.heartbeatTimeoutMs = heartbeatTimeoutMs;
+		this.scheduler = new FairScheduler(pipelineDepth);
 		initServerStubs();
+		startMembershipCheck();
 	}
 
 	/**
@@ -85,6 +140,8 @@ public class LoadBalancer implements LoadBalancerAPI, ServerThreadCallback {
 					UnicastRemoteObject.exportObject(this, portLoadBalancer);
 			LocateRegistry.getRegistry(portRmi)
 					.rebind("server", stub);
+			LocateRegistry.getRegistry(portRmi)
+					.rebind(MembershipAPI.BINDING_NAME, stub);
 			System.out.println("Load balancer ready.");
 		}
 		catch (final ConnectException e) {
@@ -98,6 +155,25 @@ public class LoadBalancer implements LoadBalancerAPI, ServerThreadCallback {
 		}
 	}
 
+	/**
+	 * Creates the long-lived executor running the ServerThreads. 
+	 * Virtual threads are used when the JDK provides them, otherwise a cached pool of daemon threads.
+	 * @return The executor.
+	 */
+	private static ExecutorService createDispatcher() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (final ReflectiveOperationException e) {
+			final AtomicInteger threadCount = new AtomicInteger();
+			return Executors.newCachedThreadPool(runnable -> {
+				final Thread thread = new Thread(runnable, "server-dispatch-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
 	/**
 	 * Connects LoadBalancer to servers.
 	 */
@@ -111,12 +187,15 @@ public class LoadBalancer implements LoadBalancerAPI, ServerThreadCallback {
 			System.exit(1);
 		}
 		if (hostnames == null || hostnames.length == 0) {
-			System.err.println("Warning: No servers found. Please verify your loadBalancer.properties file.");
+			System.err.println("Warning: No servers configured. Waiting for servers to register.");
 			return;
 		}
 		for (final String hostname : hostnames) {
+			// Unreachable servers are looked up again by the membership check
+			this.hostnames.add(hostname);
 			final ServerAPI stub = loadServerStub(hostname);
 			if (stub != null) {
+				configuredServers.put(hostname, stub);
 				servers.add(stub);
 				System.out.println("Connected to " + hostname);
 			}
@@ -130,9 +209,7 @@ public class LoadBalancer implements LoadBalancerAPI, ServerThreadCallback {
 	 */
 	private ServerAPI loadServerStub(final String hostname) {
 		try {
-			return (ServerAPI) LocateRegistry
-					.getRegistry(hostname, portRmi)
-					.lookup("server");
+			return lookupServerStub(hostname);
 		}
 		catch (final RemoteException e) {
 			System.err.println("[" + hostname + "] Remote exception: " + e.getMessage());
@@ -143,6 +220,172 @@ public class LoadBalancer implements LoadBalancerAPI, ServerThreadCallback {
 		return null;
 	}
 
+	/**
+	 * Looks a Server stub up in the RMI registry of its host.
+	 * @param hostname The Server address.
+	 * @return Server stub.
+	 * @throws RemoteException If the registry could not be reached.
+	 * @throws NotBoundException If no server is bound in the registry.
+	 */
+	private ServerAPI lookupServerStub(final String hostname) throws RemoteException, NotBoundException {
+		return (ServerAPI) LocateRegistry
+				.getRegistry(hostname, portRmi)
+				.lookup("server");
+	}
+
+	/**
+	 * Starts checking periodically the heartbeats of registered servers and probing failed servers.
+	 */
+	private void startMembershipCheck() {
+		final ScheduledExecutorService membership = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			final Thread thread = new Thread(runnable, "membership-check");
+			thread.setDaemon(true);
+			return thread;
+		});
+		membership.scheduleWithFixedDelay(this::checkMembership, PROBE_INTERVAL_MS, PROBE_INTERVAL_MS,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Unregisters servers whose heartbeats stopped, admits again failed servers answering a probe, 
+	 * and looks up again configured servers not connected, which may have started or restarted since.
+	 * Probes and lookups run on the dispatcher, since a server that went down may block them
+	 * until the connection times out, which would stall the heartbeat check.
+	 */
+	private void checkMembership() {
+		final long now = System.currentTimeMillis();
+		for (final Map.Entry<ServerAPI, Long> heartbeat : heartbeats.entrySet()) {
+			if (now - heartbeat.getValue() > heartbeatTimeoutMs && unregisterServer(heartbeat.getKey())) {
+				System.err.println("Heartbeat lost - unregistering server " + heartbeat.getKey()
+						+ describeBlocks(heartbeat.getKey()));
+			}
+		}
+		for (final Map.Entry<ServerAPI, Long> failed : failedServers.entrySet()) {
+			final ServerAPI server = failed.getKey();
+			if (now - failed.getValue() > FORGET_FAILED_MS) {
+				failedServers.remove(server);
+				heartbeats.remove(server);
+			}
+			else if (!heartbeats.containsKey(server) && probingServers.add(server)) {
+				// Registered servers come back by registering again
+				dispatcher.execute(() -> {
+					try {
+						probe(server);
+					}
+					finally {
+						probingServers.remove(server);
+					}
+				});
+			}
+		}
+		for (final String hostname : hostnames) {
+			final ServerAPI previous = configuredServers.get(hostname);
+			if ((previous == null || !servers.contains(previous)) && probingHostnames.add(hostname)) {
+				dispatcher.execute(() -> {
+					try {
+						reconnect(hostname, previous);
+					}
+					finally {
+						probingHostnames.remove(hostname);
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * Looks up again a configured server and admits it if it answers.
+	 * @param hostname The hostname of the server.
+	 * @param previous The stub of the server before it failed, or null if it was never connected.
+	 */
+	private void reconnect(final String hostname, final ServerAPI previous) {
+		try {
+			final ServerAPI stub = lookupServerStub(hostname);
+			if (probe(stub)) {
+				configuredServers.put(hostname, stub);
+				if (previous != null && !previous.equals(stub)) {
+					// The server restarted: its previous stub will never answer
+					failedServers.remove(previous);
+				}
+			}
+		}
+		catch (final RemoteException | NotBoundException e) {
+			// Still down
+		}
+	}
+
+	/**
+	 * Admits a server again if it answers.
+	 * @param server The server to probe.
+	 * @return true if the server answered.
+	 */
+	private boolean probe(final ServerAPI server) {
+		try {
+			if (admitServer(server, server.getLoad())) {
+				System.out.println("Server back - registering server " + server);
+			}
+			return true;
+		}
+		catch (final RemoteException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Adds a server to the cluster. 
+	 * @param server The server stub.
+	 * @param load The current load and capacity of the server.
+	 * @throws RemoteException If an exception occurred.
+	 */
+	@Override
+	public void register(final ServerAPI server, final ServerLoad load) throws RemoteException {
+		heartbeats.put(server, System.currentTimeMillis());
+		if (admitServer(server, load)) {
+			System.out.println("Server joined - registering server " + server);
+		}
+	}
+
+	/**
+	 * Tells that a registered server is alive.
+	 * @param server The server stub.
+	 * @param load The current load and capacity of the server.
+	 * @return false if the server is not part of the cluster and must register again.
+	 * @throws RemoteException If an exception occurred.
+	 */
+	@Override
+	public boolean heartbeat(final ServerAPI server, final ServerLoad load) throws RemoteException {
+		if (!heartbeats.containsKey(server) || !servers.contains(server)) {
+			return false;
+		}
+		heartbeats.put(server, System.currentTimeMillis());
+		throughput.setCapacity(server, load.getCapacity());
+		return true;
+	}
+
+	/**
+	 * Removes a server from the cluster, before it shuts down.
+	 * @param server The server stub.
+	 * @throws RemoteException If an exception occurred.
+	 */
+	@Override
+	public void leave(final ServerAPI server) throws RemoteException {
+		heartbeats.remove(server);
+		if (unregisterServer(server)) {
+			System.out.println("Server left - unregistering server " + server + describeBlocks(server));
+		}
+		failedServers.remove(server);
+	}
+
+	/**
+	 * Describes what the block size controller learned about a server, for the logs.
+	 * @param server The server.
+	 * @return The block size and the numbers of blocks computed and rejected.
+	 */
+	private String describeBlocks(final ServerAPI server) {
+		return " (block size " + controller.getBlockSize(server) + ", " + controller.getSuccessCount(server)
+				+ " blocks computed, " + controller.getRejectionCount(server) + " rejected)";
+	}
+
 	/**
 	 * Extracts RMI port from configuration file.
 	 * @return RMI port.
@@ -184,6 +427,57 @@ public class LoadBalancer implements LoadBalancerAPI, ServerThreadCallback {
 		return Boolean.parseBoolean(properties.getProperty("securise"));
 	}
 
+	/**
+	 * Extracts streaming mode from configuration file.
+	 * @return Streaming mode, false if not set.
+	 * @throws IOException If an error occurred when reading from the input stream.
+	 */
+	private boolean getStreamingModeFromConfig() throws IOException {
+		final InputStream input = new FileInputStream(CONFIG_LB_FILE);
+		final Properties properties = new Properties();
+		properties.load(input);
+		input.close();
+		return Boolean.parseBoolean(properties.getProperty("streaming"));
+	}
+
+	/**
+	 * Extracts the number of instructions read and executed at once from configuration file.
+	 * @return The window size, DEFAULT_WINDOW_SIZE if not set.
+	 * @throws IOException If an error occurred when reading from the input stream.
+	 * @throws NumberFormatException If the window size is not a positive number.
+	 */
+	private int getWindowSizeFromConfig() throws IOException {
+		final InputStream input = new FileInputStream(CONFIG_LB_FILE);
+		final Properties properties = new Properties();
+		properties.load(input);
+		input.close();
+		final int windowSize = Integer.parseInt(
+				properties.getProperty("windowSize", String.valueOf(DEFAULT_WINDOW_SIZE)));
+		if (windowSize < 1) {
+			throw new NumberFormatException("windowSize must be positive");
+		}
+		return windowSize;
+	}
+
+	/**
+	 * Extracts the number of blocks sent to a server without waiting for their results from configuration file.
+	 * @return The pipeline depth, DEFAULT_PIPELINE_DEPTH if not set.
+	 * @throws IOException If an error occurred when reading from the input stream.
+	 * @throws NumberFormatException If the pipeline depth is not a positive number.
+	 */
+	private int getPipelineDepthFromConfig() throws IOException {
+		final InputStream input = new FileInputStream(CONFIG_LB_FILE);
+		final Properties properties = new Properties();
+		properties.load(input);
+		input.close();
+		final int pipelineDepth = Integer.parseInt(
+				properties.getProperty("pipelineDepth", String.valueOf(DEFAULT_PIPELINE_DEPTH)));
+		if (pipelineDepth < 1) {
+			throw new NumberFormatException("pipelineDepth must be positive");
+		}
+		return pipelineDepth;
+	}
+
 	/**
 	 * Extracts hostnames from configuration file.
 	 * @return Hostnames.
@@ -194,81 +488,191 @@ public class LoadBalancer implements LoadBalancerAPI, ServerThreadCallback {
 		final Properties properties = new Properties();
 		properties.load(input);
 		input.close();
-		return properties.getProperty("hostnames").split(";");
+		final String hostnames = properties.getProperty("hostnames", "").trim();
+		return hostnames.isEmpty() ? new String[0] : hostnames.split(";");
 	}
 
 	/**
-	 * Executes instructions from specified file until all have been successfully processed.
+	 * Extracts the time after which a registered server without heartbeat is unregistered from configuration file.
+	 * @return The heartbeat timeout in milliseconds, DEFAULT_HEARTBEAT_TIMEOUT_MS if not set.
+	 * @throws IOException If an error occurred when reading from the input stream.
+	 * @throws NumberFormatException If the timeout is not a positive number.
+	 */
+	private long getHeartbeatTimeoutFromConfig() throws IOException {
+		final InputStream input = new FileInputStream(CONFIG_LB_FILE);
+		final Properties properties = new Properties();
+		properties.load(input);
+		input.close();
+		final long heartbeatTimeoutMs = Long.parseLong(
+				properties.getProperty("heartbeatTimeoutMs", String.valueOf(DEFAULT_HEARTBEAT_TIMEOUT_MS)));
+		if (heartbeatTimeoutMs < 1) {
+			throw new NumberFormatException("heartbeatTimeoutMs must be positive");
+		}
+		return heartbeatTimeoutMs;
+	}
+
+	/**
+	 * Executes instructions from specified file until all have been successfully processed, 
+	 * with the default share of the servers.
 	 * @param operationsFilePath The name of the file containing the instructions.
 	 * @return The sum of all answers modulo 4000
 	 * @throws RemoteException If an exception occurred.
 	 */
 	@Override
 	public int execute(final String operationsFilePath) throws RemoteException {
-		// Initialize results lists
-		ResultsContainer results = null;
+		return execute(operationsFilePath, DEFAULT_WEIGHT);
+	}
+
+	/**
+	 * Executes instructions from specified file until all have been successfully processed. 
+	 * The file is read lazily by windows of windowSize instructions, and each verified result is 
+	 * folded into the running sum, so that memory stays bounded whatever the size of the file. 
+	 * Executions run concurrently, each with its own instructions and results, 
+	 * and share the servers in proportion to their weights.
+	 * @param operationsFilePath The name of the file containing the instructions.
+	 * @param weight The share of the servers relative to the other executions.
+	 * @return The sum of all answers modulo 4000
+	 * @throws RemoteException If an exception occurred.
+	 */
+	@Override
+	public int execute(final String operationsFilePath, final double weight) throws RemoteException {
+		final FairScheduler.Job job;
 		try {
-			results = new ResultsContainer(loadInstructions(operationsFilePath));
+			job = scheduler.register(weight);
 		}
-		catch (final IOException e) {
+		catch (final IllegalArgumentException e) {
+			throw new RemoteException(e.getMessage());
+		}
+		int total = 0;
+		try (final InstructionReader reader = new InstructionReader(Paths.get(OPERATIONS_DIR_PATH + operationsFilePath))) {
+			ArrayList<String> window;
+			while (!(window = reader.read(windowSize)).isEmpty()) {
+				total = executeWindow(new ResultsContainer(window), total, job);
+			}
+		}
+		catch (final RemoteException e) {
+			throw e;
+		}
+		catch (final IOException | IllegalArgumentException e) {
 			throw new RemoteException("Error loading instructions: " + e.getMessage());
 		}
-		final ArrayList<Integer> validResults = new ArrayList<>();
+		return total;
+	}
 
+	/**
+	 * Executes a window of instructions until all have been successfully processed.
+	 * @param window The ResultsContainer of the window.
+	 * @param total The sum modulo 4000 of the previous windows.
+	 * @param job The execution in the scheduler.
+	 * @return The sum modulo 4000 including this window.
+	 * @throws RemoteException If the instructions could not be processed.
+	 */
+	private int executeWindow(final ResultsContainer window, final int total, final FairScheduler.Job job)
+			throws RemoteException {
+		ResultsContainer results = window;
+		int sum = total;
 		int nbRuns = 0;
 		do {
 			// Send instructions to servers
-			runComputation(results);
-			final ResultsContainer invalidEntries = new ResultsContainer();
+			final ArrayList<ServerAPI> roundServers = new ArrayList<>(servers);
+			final int quorum = roundServers.size() / 2 + 1;
+			runComputation(results, roundServers, quorum, job);
+			final int[] invalidIndices = new int[results.size()];
+			int nbInvalid = 0;
 
-			// Determine result
-			for (final ResultEntry entry : results) {
+			// Determine result and fold it into the sum
+			for (int index = 0; index < results.size(); ++index) {
 				try {
-					validResults.add(determineResult(entry.getValue()));
+					sum = (sum + determineResult(results, index, quorum)) % 4000;
 				}
 				catch (final Exception e) {
-					invalidEntries.add(entry.getKey());
+					invalidIndices[nbInvalid++] = index;
 				}
 			}
 
 			// Retry invalid entries
-			results = invalidEntries;
+			results = results.select(invalidIndices, nbInvalid);
 		}
 		while (!results.isEmpty() && nbRuns++ < MAX_NB_RUNS);
 		if (nbRuns >= MAX_NB_RUNS) {
 			throw new RemoteException("Execution loop killed.");
 		}
-		return computeResult(validResults);
+		return sum;
 	}
 
 	/**
 	 * Runs a computation on servers and get results. 
-	 * It starts a new thread for every active server and awaits completion.
+	 * It submits pipelineDepth ServerThreads for every active server to the dispatcher and awaits completion, 
+	 * so that a server computes a block while the next one and the previous results travel over the network. 
+	 * Results are inserted in the container by index, in whatever order the blocks complete. 
+	 * The ServerThreads share a queue of blocks in secure mode, and a quorum queue in non-secure mode. 
+	 * Servers receive the round deadline. Blocks still computing when it passes, or once every instruction is settled, 
+	 * are cancelled.
 	 * @param container The ResultsContainer containing instructions and results.
+	 * @param roundServers The servers taking part in the round.
+	 * @param quorum The number of identical results settling an instruction in non-secure mode.
+	 * @param job The execution in the scheduler, which grants the server slots.
 	 */
-	private void runComputation(final ResultsContainer container) {
-		// Create and start threads (one thread per server)
+	private void runComputation(final ResultsContainer container, final ArrayList<ServerAPI> roundServers,
+			final int quorum, final FairScheduler.Job job) {
+		// Submit tasks (pipelineDepth tasks per server)
 		final ArrayList<ServerThread> serverThreads = new ArrayList<>();
-		final ArrayList<ResultsContainer> jobs = determineJobs(container);
-		int i = 0;
-		for (final ServerAPI server : servers) {
-			final ServerThread serverThread = new ServerThread(server, jobs.get(i++), this);
-			serverThreads.add(serverThread);
-			serverThread.start();
+		final ArrayList<Future<?>> futures = new ArrayList<>();
+		final BlockSource queue = isSecure
+				? new BlockQueue(container, throughput, roundServers, pipelineDepth)
+				: new QuorumQueue(container, roundServers, throughput, quorum);
+		final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+		for (final ServerAPI server : roundServers) {
+			for (int lane = 0; lane < pipelineDepth; ++lane) {
+				final ServerThread serverThread = new ServerThread(server, queue, this, controller, job, isStreaming,
+						TIMEOUT_MS);
+				serverThreads.add(serverThread);
+				futures.add(dispatcher.submit(serverThread));
+			}
 		}
 
-		// Wait for all threads to finish
-		for (final ServerThread serverThread : serverThreads) {
+		// Wait until every instruction is settled or every task finished, until the round deadline
+		try {
+			long remaining = deadline - System.currentTimeMillis();
+			while (!queue.awaitDone(Math.min(remaining, DONE_POLL_MS)) && !isDone(futures) && remaining > 0) {
+				remaining = deadline - System.currentTimeMillis();
+			}
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		// Cancel the tasks no longer awaited, such as the late copies of settled blocks
+		for (int i = 0; i < futures.size(); ++i) {
+			if (!futures.get(i).isDone()) {
+				serverThreads.get(i).cancel();
+				futures.get(i).cancel(true);
+				continue;
+			}
 			try {
-				serverThread.join(TIMEOUT_MS);
+				futures.get(i).get();
+			}
+			catch (final ExecutionException e) {
+				e.getCause().printStackTrace();
 			}
-			catch (final InterruptedException e) {
-				e.printStackTrace();
+			catch (final InterruptedException | CancellationException e) {
+				// Nothing to report
 			}
 		}
+	}
 
-		// Save results
-		syncContainer(container, jobs);
+	/**
+	 * Checks whether all tasks are finished.
+	 * @param futures The futures of the tasks.
+	 * @return true if every task is finished.
+	 */
+	private static boolean isDone(final ArrayList<Future<?>> futures) {
+		for (final Future<?> future : futures) {
+			if (!future.isDone()) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	/**
@@ -277,109 +681,77 @@ public class LoadBalancer implements LoadBalancerAPI, ServerThreadCallback {
 	 */
 	@Override
 	public void onFailure(ServerAPI server) {
-		System.err.println("Connection lost - unregistering server " + server);
-		unregisterServer(server);
+		// Every pipelined task of the server reports the failure, only the first unregisters it
+		if (unregisterServer(server)) {
+			System.err.println("Connection lost - unregistering server " + server + describeBlocks(server));
+		}
 	}
 
 	/**
-	 * Computes the sum module 4000 of multiple results.
-	 * @param results All the individual results to sum modulo 4000.
-	 * @return The resulting sum modulo 4000.
+	 * Callback when a server advertises its capacity.
+	 * @param server The server.
+	 * @param capacity The capacity.
 	 */
-	private int computeResult(final ArrayList<Integer> results) {
-		int total = 0;
-		for (final Integer result : results) {
-			total = (total + result) % 4000;
-		}
-		return total;
+	@Override
+	public void onCapacity(final ServerAPI server, final int capacity) {
+		throughput.setCapacity(server, capacity);
 	}
 
 	/**
-	 * Extracts the instructions from instructions file.
-	 * @param operationsFile Name of the instructions file.
-	 * @return The ArrayList of operations.
-	 * @throws IOException If an error occurred when reading from the input stream.
+	 * Callback when a server returned all results of a block.
+	 * @param server The server.
+	 * @param instructions The number of instructions of the block.
+	 * @param elapsedNs The time taken by the server to return the block, in nanoseconds.
 	 */
-	private ArrayList<String> loadInstructions(final String operationsFile) throws IOException {
-		ArrayList<String> instructions = new ArrayList<>();
-		instructions = new ArrayList<>(Files.readAllLines(Paths.get(OPERATIONS_DIR_PATH + operationsFile)));
-		return instructions;
+	@Override
+	public void onBlockCompleted(final ServerAPI server, final int instructions, final long elapsedNs) {
+		throughput.record(server, instructions, elapsedNs);
 	}
 
 	/**
 	 * Tries to determine the "good" result amongst multiple results.
-	 * @param values An ArrayList of values to compare.
-	 * @return The "good" result, which is the most present value in non-secure mode.
+	 * @param container The container holding the results to compare.
+	 * @param index The index of the instruction whose results to compare.
+	 * @param quorum The number of identical results required in non-secure mode.
+	 * @return The "good" result, which is the value reaching the quorum in non-secure mode.
 	 * @throws Exception If a "good" value cannot be determined.
 	 */
-	private int determineResult(final ArrayList<Integer> values) throws Exception {
+	private int determineResult(final ResultsContainer container, final int index, final int quorum)
+			throws Exception {
 		if (isSecure) {
-			return values.get(0);
-		}
-		Collections.sort(values);
-		if (values.get(0).equals(values.get(values.size() / 2))) {
-			return values.get(0);
+			return container.getResult(index, 0);
 		}
-		else if (values.get(values.size() - 1).equals(values.get(values.size() / 2))) {
-			return values.get(values.size() - 1);
+		final int majority = container.findMajority(index, quorum);
+		if (majority < 0) {
+			throw new Exception("Could not determine result of " + container.getInstruction(index));
 		}
-		throw new Exception("Could not determine result with values " + values);
+		return container.getResult(index, majority);
 	}
 
 	/**
-	 * Removes a server from memory.
-	 * @param server The server to remove.
-	 * @return true if the list contained the specified server.
+	 * Adds a server to the servers of the next rounds, unless already there.
+	 * @param server The server to add.
+	 * @param load The current load and capacity of the server.
+	 * @return true if the server was added.
 	 */
-	private boolean unregisterServer(final ServerAPI server) {
-		return servers.remove(server);
+	private boolean admitServer(final ServerAPI server, final ServerLoad load) {
+		failedServers.remove(server);
+		throughput.setCapacity(server, load.getCapacity());
+		controller.setCapacity(server, load.getCapacity());
+		return servers.addIfAbsent(server);
 	}
 
 	/**
-	 * Determines individual job list for each active server. 
-	 * In secure mode with N servers, each server computes 1/N of the tasks. 
-	 * In non-secure mode, every servers compute the whole task list.
-	 * @param container The main ResultsContainer to split, if necessary.
-	 * @return An ArrayList of individual jobs for each server.
-	 */
-	private ArrayList<ResultsContainer> determineJobs(final ResultsContainer container) {
-		final int nbServers = servers.size();
-		final ArrayList<ResultsContainer> jobs = new ArrayList<>();
-		if (isSecure) {
-			final int subContainerSize = container.size() / nbServers;
-			for (int i = 0; i < nbServers; ++i) {
-				final int fromIndex = i * subContainerSize;
-				final int toIndex = i == nbServers - 1 ? container.size() : (i + 1) * subContainerSize;
-				jobs.add(container.subList(fromIndex, toIndex));
-			}
-		}
-		else {
-			for (int i = 0; i < servers.size(); ++i) {
-				jobs.add(container);
-			}
-		}
-		return jobs;
-	}
-
-	/**
-	 * Ensures that the main container contains all results from every servers.
-	 * @param mainContainer The main ResultsContainer.
-	 * @param subContainers The ArrayList of individually cumputed sub-containers.
+	 * Removes a server from memory. It is probed until it answers again.
+	 * @param server The server to remove.
+	 * @return true if the list contained the specified server.
 	 */
-	private void syncContainer(final ResultsContainer mainContainer, final ArrayList<ResultsContainer> subContainers) {
-		if (!isSecure) {
-			return;
-		}
-		int i = 0;
-		for (final ResultsContainer subContainer : subContainers) {
-			for (final ResultEntry subEntry : subContainer) {
-				try {
-					mainContainer.get(i++).setValue(subEntry.getValue());
-				}
-				catch (final IndexOutOfBoundsException e) {
-					e.printStackTrace();
-				}
-			}
+	private boolean unregisterServer(final ServerAPI server) {
+		if (!servers.remove(server)) {
+			return false;
 		}
+		throughput.remove(server);
+		failedServers.put(server, System.currentTimeMillis());
+		return true;
 	}
 }
@@ -15,4 +15,13 @@ public interface LoadBalancerAPI extends Remote {
 	 * @throws RemoteException If an exception occurred.
 	 */
 	int execute(String path) throws RemoteException;
+
+	/**
+	 * Execute instructions from specified file, sharing the servers with concurrent executions.
+	 * @param path The name of the file containing the instructions.
+	 * @param weight The share of the servers relative to the other executions, 1 by default.
+	 * @return The sum of all results modulo 4000
+	 * @throws RemoteException If an exception occurred.
+	 */
+	int execute(String path, double weight) throws RemoteException;
 }
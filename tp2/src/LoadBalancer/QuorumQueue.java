@@ -0,0 +1,347 @@
+package LoadBalancer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import Server.ServerAPI;
+
+/**
+ * A shared source of instruction blocks for non-secure mode, where servers can return false results. 
+ * Each instruction is first sent to just enough distinct servers to reach a quorum (a majority of the servers). 
+ * Votes are counted as results arrive, and another server is asked only while the results received disagree. 
+ * Instructions that no server can settle anymore are left without a decision for the next round. 
+ * A block computing for longer than expected from the server latencies is hedged: its unsettled instructions 
+ * are offered to an idle server. Blocks still computing once all their instructions are settled are cancelled. 
+ * At most the first 64 servers take part in a round.
+ *
+ */
+public class QuorumQueue implements BlockSource {
+
+	// Constants
+	private static final int MAX_SERVERS = Long.SIZE;
+
+	// Member variables
+	private final ResultsContainer container;
+	private final List<ServerAPI> servers;
+	private final ServerThroughput throughput;
+	private final int quorum;
+	private final long[] assigned;
+	private final int[] replicas;
+	private final int[] failures;
+	private final boolean[] settled;
+	private final int[] cursors;
+	private final Deque<Integer> retries = new ArrayDeque<>();
+	private final List<Block> outstanding = new ArrayList<>();
+	private int settledCount = 0;
+
+	/**
+	 * Constructor.
+	 * @param container The ResultsContainer whose instructions are distributed.
+	 * @param servers The servers sharing the queue.
+	 * @param throughput The server latencies telling when a block is late.
+	 * @param quorum The number of identical results required to settle an instruction.
+	 */
+	public QuorumQueue(final ResultsContainer container, final List<ServerAPI> servers,
+			final ServerThroughput throughput, final int quorum) {
+		this.container = container;
+		this.servers = servers;
+		this.throughput = throughput;
+		this.quorum = quorum;
+		assigned = new long[container.size()];
+		replicas = new int[container.size()];
+		failures = new int[container.size()];
+		settled = new boolean[container.size()];
+		cursors = new int[Math.min(servers.size(), MAX_SERVERS)];
+		for (int i = 0; i < replicas.length; ++i) {
+			replicas[i] = quorum;
+		}
+	}
+
+	/**
+	 * Returns the container whose instructions are distributed.
+	 * @return The ResultsContainer.
+	 */
+	@Override
+	public ResultsContainer getContainer() {
+		return container;
+	}
+
+	/**
+	 * Claims instructions that still need a result from specified server: 
+	 * instructions given back or in disagreement first, then the next instructions of the container. 
+	 * Waits while blocks computing on other servers may still require this server, and hedges the late ones.
+	 * @param maxSize The maximum number of instructions of the block.
+	 * @param server The server claiming the block.
+	 * @param timeoutMs The maximum time to wait for a block, in milliseconds, or 0 for no limit.
+	 * @return The block, or null if there is nothing left for the server.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	@Override
+	public synchronized Block take(final int maxSize, final ServerAPI server, final long timeoutMs)
+			throws InterruptedException {
+		final int serverIndex = servers.indexOf(server);
+		if (serverIndex < 0 || serverIndex >= MAX_SERVERS) {
+			return null;
+		}
+		final long deadline = System.currentTimeMillis() + timeoutMs;
+		while (true) {
+			final int[] indices = pick(serverIndex, Math.max(maxSize, 1));
+			if (indices.length > 0) {
+				final Block block = new Block(indices, server);
+				outstanding.add(block);
+				return block;
+			}
+			if (outstanding.isEmpty()) {
+				return null;
+			}
+			// Hedge the late blocks of other servers
+			final long now = System.nanoTime();
+			long nextLateNs = Long.MAX_VALUE;
+			boolean isHedging = false;
+			for (final Block block : outstanding) {
+				final long expectedNs = throughput.getExpectedLatencyNs(block.owner, block.size());
+				if (block.owner == server || block.isHedged || expectedNs == 0) {
+					continue;
+				}
+				final long lateInNs = block.getLateInNs(expectedNs, now);
+				if (lateInNs <= 0) {
+					block.isHedged = true;
+					isHedging |= hedge(block);
+				}
+				else {
+					nextLateNs = Math.min(nextLateNs, lateInNs);
+				}
+			}
+			if (isHedging) {
+				continue;
+			}
+			// Wait for a block to complete or to become late
+			long waitMs = nextLateNs == Long.MAX_VALUE ? 0 : Math.max(TimeUnit.NANOSECONDS.toMillis(nextLateNs), 1);
+			if (timeoutMs > 0) {
+				final long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					return null;
+				}
+				waitMs = waitMs == 0 ? remaining : Math.min(waitMs, remaining);
+			}
+			wait(waitMs);
+		}
+	}
+
+	/**
+	 * Waits until every instruction is settled.
+	 * @param timeoutMs The maximum time to wait, in milliseconds.
+	 * @return true if every instruction is settled.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	@Override
+	public synchronized boolean awaitDone(final long timeoutMs) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + timeoutMs;
+		long remaining = timeoutMs;
+		while (settledCount < settled.length && remaining > 0) {
+			wait(remaining);
+			remaining = deadline - System.currentTimeMillis();
+		}
+		return settledCount == settled.length;
+	}
+
+	/**
+	 * Counts the votes of a computed block, and asks for another replica of the instructions in disagreement. 
+	 * Blocks still computing whose instructions are all settled are cancelled.
+	 * @param block The block.
+	 */
+	@Override
+	public void complete(final Block block) {
+		final List<Block> losers = new ArrayList<>();
+		synchronized (this) {
+			outstanding.remove(block);
+			for (int i = 0; i < block.size(); ++i) {
+				vote(block.getIndex(i));
+			}
+			final Iterator<Block> iterator = outstanding.iterator();
+			while (iterator.hasNext()) {
+				final Block other = iterator.next();
+				if (isSettled(other)) {
+					iterator.remove();
+					losers.add(other);
+				}
+			}
+			notifyAll();
+		}
+		for (final Block loser : losers) {
+			loser.cancel();
+		}
+	}
+
+	/**
+	 * Asks another server for the instructions of a block that could not be computed.
+	 * @param block The block.
+	 */
+	@Override
+	public synchronized void release(final Block block) {
+		if (!outstanding.remove(block)) {
+			// Already cancelled as a settled hedged block
+			return;
+		}
+		for (int i = 0; i < block.size(); ++i) {
+			final int index = block.getIndex(i);
+			if (!settled[index]) {
+				++failures[index];
+				requestReplica(index);
+			}
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Gives back the instructions of a block rejected by its server, without counting a failure: 
+	 * the server is unassigned, so that it can take them again in a smaller block.
+	 * @param block The block.
+	 */
+	@Override
+	public synchronized void reject(final Block block) {
+		if (!outstanding.remove(block)) {
+			// Already cancelled as a settled hedged block
+			return;
+		}
+		final long serverBit = 1L << servers.indexOf(block.owner);
+		for (int i = block.size() - 1; i >= 0; --i) {
+			final int index = block.getIndex(i);
+			if (!settled[index]) {
+				assigned[index] &= ~serverBit;
+				retries.addFirst(index);
+			}
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Offers the unsettled instructions of a late block to one more server each.
+	 * @param block The late block.
+	 * @return true if at least one instruction can be offered.
+	 */
+	private boolean hedge(final Block block) {
+		boolean isHedging = false;
+		for (int i = 0; i < block.size(); ++i) {
+			final int index = block.getIndex(i);
+			if (!settled[index] && Long.bitCount(assigned[index]) < cursors.length) {
+				replicas[index] = Math.max(replicas[index], Long.bitCount(assigned[index]) + 1);
+				retries.add(index);
+				isHedging = true;
+			}
+		}
+		return isHedging;
+	}
+
+	/**
+	 * Checks whether all instructions of a block are settled.
+	 * @param block The block.
+	 * @return true if no instruction of the block needs a result anymore.
+	 */
+	private boolean isSettled(final Block block) {
+		for (int i = 0; i < block.size(); ++i) {
+			if (!settled[block.getIndex(i)]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Picks and assigns instructions a server can compute.
+	 * @param serverIndex The index of the server.
+	 * @param maxSize The maximum number of instructions.
+	 * @return The indices of the instructions.
+	 */
+	private int[] pick(final int serverIndex, final int maxSize) {
+		final int[] picked = new int[maxSize];
+		int count = 0;
+		final Iterator<Integer> iterator = retries.iterator();
+		while (iterator.hasNext() && count < maxSize) {
+			final int index = iterator.next();
+			if (settled[index] || Long.bitCount(assigned[index]) >= replicas[index]) {
+				iterator.remove();
+			}
+			else if (isEligible(index, serverIndex)) {
+				iterator.remove();
+				picked[count++] = assign(index, serverIndex);
+			}
+		}
+		while (cursors[serverIndex] < settled.length && count < maxSize) {
+			final int index = cursors[serverIndex]++;
+			if (isEligible(index, serverIndex)) {
+				picked[count++] = assign(index, serverIndex);
+			}
+		}
+		final int[] indices = new int[count];
+		System.arraycopy(picked, 0, indices, 0, count);
+		return indices;
+	}
+
+	/**
+	 * Checks whether a server can compute an instruction.
+	 * @param index The index of the instruction.
+	 * @param serverIndex The index of the server.
+	 * @return true if the instruction needs another replica and the server has not been asked for it.
+	 */
+	private boolean isEligible(final int index, final int serverIndex) {
+		return !settled[index]
+				&& Long.bitCount(assigned[index]) < replicas[index]
+				&& (assigned[index] & (1L << serverIndex)) == 0;
+	}
+
+	/**
+	 * Assigns an instruction to a server.
+	 * @param index The index of the instruction.
+	 * @param serverIndex The index of the server.
+	 * @return The index of the instruction.
+	 */
+	private int assign(final int index, final int serverIndex) {
+		assigned[index] |= 1L << serverIndex;
+		return index;
+	}
+
+	/**
+	 * Settles an instruction whose results reach the quorum, 
+	 * or asks for another replica once all the servers asked (and not failed) have answered without agreeing.
+	 * @param index The index of the instruction.
+	 */
+	private void vote(final int index) {
+		if (settled[index]) {
+			return;
+		}
+		if (container.findMajority(index, quorum) >= 0) {
+			settle(index);
+		}
+		else if (container.getResultCount(index) >= Long.bitCount(assigned[index]) - failures[index]) {
+			requestReplica(index);
+		}
+	}
+
+	/**
+	 * Asks one more server for an instruction, or gives up on it if every server was asked.
+	 * @param index The index of the instruction.
+	 */
+	private void requestReplica(final int index) {
+		if (Long.bitCount(assigned[index]) >= cursors.length) {
+			settle(index);
+			return;
+		}
+		replicas[index] = Long.bitCount(assigned[index]) + 1;
+		retries.add(index);
+	}
+
+	/**
+	 * Marks an instruction as settled: decided, or given up for this round.
+	 * @param index The index of the instruction.
+	 */
+	private void settle(final int index) {
+		if (!settled[index]) {
+			settled[index] = true;
+			++settledCount;
+		}
+	}
+}
@@ -1,60 +1,191 @@
 package LoadBalancer;
-import java.util.ArrayList;
+import java.util.List;
+
+import Server.InstructionCodec;
 
 /**
- * An ArrayList of instruction-result tuples.
+ * Instructions and their results, stored in primitive columns.
+ * Instructions are packed as (opcode, operand) pairs in an int[], and the n-th result received
+ * for every instruction is stored in the n-th int[] result column, allocated when first needed.
+ * Blocks address the instructions by index, so the container is never sliced.
  *
  */
-public class ResultsContainer extends ArrayList<ResultEntry> {
+public class ResultsContainer {
+
+	// Constants
+	public static final int MAX_RESULTS = Byte.MAX_VALUE;
+
+	/**
+	 * The columns, which also serve as the lock of the results.
+	 *
+	 */
+	private static final class Columns {
+		private final int[] instructions;
+		private final byte[] counts;
+		private int[][] results = new int[0][];
+
+		/**
+		 * Constructor.
+		 * @param instructions The packed instructions, two ints per instruction.
+		 */
+		private Columns(final int[] instructions) {
+			this.instructions = instructions;
+			this.counts = new byte[instructions.length / 2];
+		}
+	}
+
+	// Member variables
+	private final Columns columns;
+
+	/**
+	 * Constructor with instructions initialization. The instructions are packed once for the binary server API.
+	 * @param instructions A List of instructions to initialize the container.
+	 * @throws IllegalArgumentException If an instruction is invalid.
+	 */
+	public ResultsContainer(final List<String> instructions) throws IllegalArgumentException {
+		this(new Columns(InstructionCodec.encode(instructions)));
+	}
+
+	/**
+	 * Constructor.
+	 * @param columns The columns.
+	 */
+	private ResultsContainer(final Columns columns) {
+		this.columns = columns;
+	}
 
-	private static final long serialVersionUID = 1L;
-	
 	/**
-	 * Default constructor.
+	 * Returns the number of instructions.
+	 * @return The number of instructions.
 	 */
-	public ResultsContainer() {
-		
+	public int size() {
+		return columns.counts.length;
 	}
-	
+
+	/**
+	 * Returns whether this container holds no instruction.
+	 * @return true if this container holds no instruction.
+	 */
+	public boolean isEmpty() {
+		return columns.counts.length == 0;
+	}
+
 	/**
-	 * Constructor with instructions initialization.
-	 * @param instructions An ArrayList of instructions to initialize the container.
+	 * Returns a new container holding copies of specified instructions, without results.
+	 * @param indices The indices of the instructions to copy.
+	 * @param count The number of indices to use.
+	 * @return A new container.
 	 */
-	public ResultsContainer(final ArrayList<String> instructions) {
-		for (final String instruction : instructions) {
-			add(instruction);
+	public ResultsContainer select(final int[] indices, final int count) {
+		final int[] instructions = new int[2 * count];
+		for (int i = 0; i < count; ++i) {
+			final int from = 2 * indices[i];
+			instructions[2 * i] = columns.instructions[from];
+			instructions[2 * i + 1] = columns.instructions[from + 1];
 		}
+		return new ResultsContainer(new Columns(instructions));
 	}
 
 	/**
-	 * Returns a subset of this container by copy.
-	 * @param fromIndex The index from which to begin the subset (inclusive).
-	 * @param toIndex The index to which end the subset (exclusive).
-	 * @return A subset of this container.
-	 * @throws IndexOutOfBoundsException If an endpoint index value is out of range (fromIndex < 0 || toIndex > size).
-	 * @throws IllegalArgumentException If the endpoint indices are out of order (fromIndex > toIndex).
+	 * Returns the packed opcode of an instruction.
+	 * @param index The index of the instruction.
+	 * @return The opcode.
 	 */
-	@Override
-	public ResultsContainer subList(final int fromIndex, final int toIndex)
-			throws IndexOutOfBoundsException, IllegalArgumentException {
-		if (fromIndex < 0 || toIndex > size()) {
-			throw new IndexOutOfBoundsException();
+	public int getOpcode(final int index) {
+		return columns.instructions[2 * index];
+	}
+
+	/**
+	 * Returns the packed operand of an instruction.
+	 * @param index The index of the instruction.
+	 * @return The operand.
+	 */
+	public int getOperand(final int index) {
+		return columns.instructions[2 * index + 1];
+	}
+
+	/**
+	 * Returns an instruction in its text form, such as "pell 24".
+	 * @param index The index of the instruction.
+	 * @return The instruction.
+	 */
+	public String getInstruction(final int index) {
+		return InstructionCodec.decode(getOpcode(index)).name().toLowerCase() + " " + getOperand(index);
+	}
+
+	/**
+	 * Adds a result to an instruction. Results beyond MAX_RESULTS are dropped.
+	 * Synchronized on the columns since every server thread adds to the same instructions in non-secure mode.
+	 * @param index The index of the instruction.
+	 * @param result A result to add to the results.
+	 */
+	public void add(final int index, final int result) {
+		synchronized (columns) {
+			final int count = columns.counts[index];
+			if (count >= MAX_RESULTS) {
+				return;
+			}
+			if (count == columns.results.length) {
+				// First instruction with this many results: allocate the next column
+				final int[][] results = new int[count + 1][];
+				System.arraycopy(columns.results, 0, results, 0, count);
+				results[count] = new int[columns.counts.length];
+				columns.results = results;
+			}
+			columns.results[count][index] = result;
+			columns.counts[index] = (byte) (count + 1);
 		}
-		if (fromIndex > toIndex) {
-			throw new IllegalArgumentException();
+	}
+
+	/**
+	 * Returns the number of results received for an instruction.
+	 * @param index The index of the instruction.
+	 * @return The number of results.
+	 */
+	public int getResultCount(final int index) {
+		synchronized (columns) {
+			return columns.counts[index];
 		}
-		final ResultsContainer newContainer = new ResultsContainer();
-		for (int index = fromIndex; index < toIndex; ++index) {
-			newContainer.add(get(index));
+	}
+
+	/**
+	 * Returns a result received for an instruction.
+	 * @param index The index of the instruction.
+	 * @param rank The rank of the result, in order of arrival.
+	 * @return The result.
+	 * @throws IndexOutOfBoundsException If fewer results were received.
+	 */
+	public int getResult(final int index, final int rank) throws IndexOutOfBoundsException {
+		synchronized (columns) {
+			if (rank < 0 || rank >= columns.counts[index]) {
+				throw new IndexOutOfBoundsException("No result " + rank + " for " + getInstruction(index));
+			}
+			return columns.results[rank][index];
 		}
-		return newContainer;
 	}
 
 	/**
-	 * Inserts an instruction to this container with initialized empty results.
-	 * @param instruction The instruction to insert.
+	 * Finds the result received at least specified number of times for an instruction, counting votes as they arrive.
+	 * @param index The index of the instruction.
+	 * @param quorum The number of identical results required.
+	 * @return The rank of a result reaching the quorum, or -1 if no result reaches it.
 	 */
-	public void add(final String instruction) {
-		add(new ResultEntry(instruction, new ArrayList<>()));
+	public int findMajority(final int index, final int quorum) {
+		synchronized (columns) {
+			final int count = columns.counts[index];
+			for (int r = 0; r + quorum <= count; ++r) {
+				final int value = columns.results[r][index];
+				int votes = 1;
+				for (int s = r + 1; s < count && votes < quorum; ++s) {
+					if (columns.results[s][index] == value) {
+						++votes;
+					}
+				}
+				if (votes >= quorum) {
+					return r;
+				}
+			}
+			return -1;
+		}
 	}
 }
@@ -1,38 +1,72 @@
 package LoadBalancer;
 import java.rmi.RemoteException;
-import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
 
+import Server.CancelledException;
+import Server.PartialResults;
 import Server.RejectedException;
 import Server.ServerAPI;
 
 /**
- * A thread in which instructions are sent to a server.
+ * A task in which instructions are sent to a server, run by the LoadBalancer dispatcher. 
+ * Several tasks can send blocks to the same server at once to pipeline them.
  *
  */
-public class ServerThread extends Thread {
+public class ServerThread implements Runnable {
 
 	// Constants
-	public static final int SUCCESS_BLOCK_INCREMENT = 5;
+	public static final long POLL_TIMEOUT_MS     = 1000;
+	public static final long REJECTED_BACKOFF_MS = 10; // Mean wait before retrying a server without free slots
 
 	// Member variables
 	private final ServerAPI server;
 	private final ResultsContainer container;
+	private final BlockSource queue;
 	private final ServerThreadCallback callback;
-	private int successProcessedBlocks = 0;
-	private int blockSize              = 1;
-	private int head                   = 0;
-	private int offset                 = 0;
+	private final BlockSizeController controller;
+	private final FairScheduler.Job job;
+	private final boolean streaming;
+	private final long timeoutMs;
+	private volatile boolean isCancelled = false;
+	private volatile long requestId     = 0;
+	private Block block = null;
+	private int offset  = 0;
 
 	/**
 	 * Constructor.
 	 * @param server The target server.
-	 * @param container The ResultsContainer to read instructions and store results.
+	 * @param queue The BlockSource to take blocks from, whose container stores results.
 	 * @param callback (optional) The callback interface.
+	 * @param controller The BlockSizeController learning the block size of the server.
+	 * @param job (optional) The execution whose scheduler grants the server slots.
+	 * @param streaming Whether results are collected as they complete instead of per block.
+	 * @param timeoutMs The time allowed to send all instructions, in milliseconds, or 0 for no deadline.
 	 */
-	public ServerThread(final ServerAPI server, final ResultsContainer container, final ServerThreadCallback callback) {
+	public ServerThread(final ServerAPI server, final BlockSource queue, final ServerThreadCallback callback,
+			final BlockSizeController controller, final FairScheduler.Job job, final boolean streaming,
+			final long timeoutMs) {
 		this.server = server;
-		this.container = container;
+		this.container = queue.getContainer();
+		this.queue = queue;
 		this.callback = callback;
+		this.controller = controller;
+		this.job = job;
+		this.streaming = streaming;
+		this.timeoutMs = timeoutMs;
+	}
+
+	/**
+	 * Stops sending instructions and cancels the block being computed by the server. 
+	 * Instructions without result are left to the next round.
+	 */
+	public void cancel() {
+		isCancelled = true;
+		try {
+			server.cancelOperations(requestId);
+		}
+		catch (final RemoteException e) {
+			// The server is unreachable: its block is lost anyway
+		}
 	}
 
 	/**
@@ -44,61 +78,196 @@ public class ServerThread extends Thread {
 		}
 		reset();
 		try {
-			blockSize = server.getCapacity();
+			final int capacity = server.getCapacity();
+			controller.setCapacity(server, capacity);
+			if (callback != null) {
+				callback.onCapacity(server, capacity);
+			}
 		}
 		catch (final RemoteException e) {
 			onConnectionFailure();
 			return;
 		}
+		final long deadline = System.currentTimeMillis() + timeoutMs;
 		// Send all instructions
-		while (head < container.size()) {
+		while (!isCancelled) {
+			// Give the server the time left, or stop if there is none
+			long remaining = 0;
+			if (timeoutMs > 0) {
+				remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					return;
+				}
+			}
+			// Take the next block from the queue, of the size learned for the server
+			try {
+				block = queue.take(controller.getBlockSize(server), server, remaining);
+			}
+			catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			if (block == null) {
+				return;
+			}
+			// Wait for the server to have a slot for this execution
+			if (!acquire(remaining)) {
+				release();
+				return;
+			}
+			if (block.isCancelled) {
+				// Settled by its copy on another server while waiting
+				releaseSlot(0);
+				release();
+				continue;
+			}
+			requestId = ThreadLocalRandom.current().nextLong();
+			block.setRequestId(requestId);
+			block.markSent();
+			final long start = System.nanoTime();
+			long backoffMs = 0;
 			// Send task block and save result
 			try {
-				final ArrayList<Integer> resultBlock = server.doOperations(buildTaskBlock());
-				insert(resultBlock);
-
-				// Update head
-				head += resultBlock.size();
-				++successProcessedBlocks;
-				// Increment block size every SUCCESS_BLOCK_INCREMENT successful blocks
-				if (successProcessedBlocks % SUCCESS_BLOCK_INCREMENT == 0) {
-					++blockSize;
+				if (streaming) {
+					if (!collect(server.submitOperations(buildTaskBlock(), requestId, remaining))) {
+						// Results received so far are kept, the rest is retried
+						release();
+						onConnectionFailure();
+						return;
+					}
+				}
+				else {
+					insert(server.doOperations(buildTaskBlock(), requestId, remaining));
 				}
+				queue.complete(block);
+				if (callback != null) {
+					callback.onBlockCompleted(server, block.size(), System.nanoTime() - start);
+				}
+
+				// Grow block size
+				controller.onSuccess(server, block.size());
 			}
 			catch (final RejectedException e) {
-				// Decrement block size
-				successProcessedBlocks = 0;
-				if (blockSize > 1) {
-					--blockSize;
+				queue.reject(block);
+				// Shrink block size, down to the server's suggestion if any
+				controller.onRejected(server, e.getSuggestedBlockSize());
+				if (e.getSuggestedBlockSize() == 0) {
+					// The server is full: give it time to free slots, jittered so that the lanes do not retry together
+					backoffMs = ThreadLocalRandom.current()
+							.nextLong(REJECTED_BACKOFF_MS / 2, 3 * REJECTED_BACKOFF_MS / 2 + 1);
 				}
 			}
+			catch (final CancelledException e) {
+				// Instructions without result are retried, and a cancelled copy leaves the server free for other blocks
+				release();
+			}
 			catch (final RemoteException e) {
 				e.printStackTrace();
-				interrupt();
+				release();
+				onConnectionFailure();
+				return;
+			}
+			finally {
+				releaseSlot(block.size());
+			}
+			if (backoffMs > 0) {
+				try {
+					Thread.sleep(backoffMs);
+				}
+				catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
 			}
 		}
 	}
 
 	/**
-	 * Builds a subset of instructions based on server capacity and the scaling factor.
-	 * @return An ArrayList of instructions.
+	 * Frees the slot on the server, if the execution is scheduled.
+	 * @param instructions The number of instructions sent, charged to the execution.
 	 */
-	private ArrayList<String> buildTaskBlock() {
-		final ArrayList<String> taskBlock = new ArrayList<>();
-		for (offset = 0; offset < blockSize && head + offset < container.size(); ++offset) {
-			taskBlock.add(container.get(head + offset).getKey());
+	private void releaseSlot(final int instructions) {
+		if (job != null) {
+			job.release(server, instructions);
+		}
+	}
+
+	/**
+	 * Waits for a slot on the server, if the execution is scheduled.
+	 * @param timeoutMs The maximum time to wait, in milliseconds, or 0 for no limit.
+	 * @return false if the time ran out or the thread was interrupted.
+	 */
+	private boolean acquire(final long timeoutMs) {
+		if (job == null) {
+			return true;
+		}
+		try {
+			return job.acquire(server, timeoutMs);
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Gives the current block back to the queue.
+	 */
+	private void release() {
+		queue.release(block);
+	}
+
+	/**
+	 * Builds the packed instructions of the current block.
+	 * @return The packed instructions, as (opcode, operand) pairs.
+	 */
+	private int[] buildTaskBlock() {
+		final int[] taskBlock = new int[2 * block.size()];
+		for (offset = 0; 2 * offset < taskBlock.length; ++offset) {
+			final int index = block.getIndex(offset);
+			taskBlock[2 * offset] = container.getOpcode(index);
+			taskBlock[2 * offset + 1] = container.getOperand(index);
 		}
 		return taskBlock;
 	}
 
+	/**
+	 * Collects the results of a streaming job as they complete and inserts them in the container. 
+	 * Instructions of a failed job stay without result and are retried.
+	 * @param jobId The job identifier.
+	 * @return false if the connection to the server was lost.
+	 * @throws CancelledException If the job was cancelled or its deadline passed.
+	 */
+	private boolean collect(final long jobId) throws CancelledException {
+		try {
+			PartialResults partialResults;
+			do {
+				partialResults = server.pollResults(jobId, POLL_TIMEOUT_MS);
+				final int[] indices = partialResults.getIndices();
+				final int[] values = partialResults.getValues();
+				for (int i = 0; i < indices.length; ++i) {
+					container.add(block.getIndex(indices[i]), values[i]);
+				}
+			}
+			while (!partialResults.isDone());
+			if (partialResults.getError() != null) {
+				throw new CancelledException(partialResults.getError());
+			}
+			return true;
+		}
+		catch (final RemoteException e) {
+			return false;
+		}
+	}
+
 	/**
 	 * Inserts results in the container.
 	 * @param resultBlock The results to insert.
 	 */
-	private void insert(final ArrayList<Integer> resultBlock) {
+	private void insert(final int[] resultBlock) {
 		int iRes = 0;
-		for (final Integer result : resultBlock) {
-			container.get(head + iRes++).getValue().add(result);
+		for (final int result : resultBlock) {
+			container.add(block.getIndex(iRes++), result);
 		}
 	}
 
@@ -107,16 +276,14 @@ public class ServerThread extends Thread {
 	 * @return true if all critical objects are not null.
 	 */
 	private boolean checkNonNull() {
-		return server != null && container != null;
+		return server != null && container != null && controller != null;
 	}
 
 	/**
 	 * Resets the member variables to initial state.
 	 */
 	private void reset() {
-		successProcessedBlocks = 0;
-		blockSize = 1;
-		head = 0;
+		block = null;
 		offset = 0;
 	}
 
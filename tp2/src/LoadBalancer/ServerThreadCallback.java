@@ -12,4 +12,19 @@ public interface ServerThreadCallback {
 	 * @param server The server that failed.
 	 */
 	public void onFailure(ServerAPI server);
+
+	/**
+	 * Callback when a server advertises its capacity.
+	 * @param server The server.
+	 * @param capacity The capacity.
+	 */
+	public void onCapacity(ServerAPI server, int capacity);
+
+	/**
+	 * Callback when a server returned all results of a block.
+	 * @param server The server.
+	 * @param instructions The number of instructions of the block.
+	 * @param elapsedNs The time taken by the server to return the block, in nanoseconds.
+	 */
+	public void onBlockCompleted(ServerAPI server, int instructions, long elapsedNs);
 }
@@ -0,0 +1,202 @@
+package LoadBalancer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import Server.ServerAPI;
+
+/**
+ * The advertised capacity and the measured throughput of each server, kept across rounds and executions. 
+ * Throughput is smoothed with an exponentially weighted moving average (EWMA). 
+ * Servers not measured yet are weighted by their capacity, scaled to the throughput per capacity unit of the others. 
+ * The latency of the latest blocks of each server is also kept, to tell when a block is late. 
+ * It is modelled as a fixed cost per call, such as the RMI round trip, plus a cost per instruction, 
+ * so that small blocks are not expected to return faster than a call can.
+ *
+ */
+public class ServerThroughput {
+
+	// Constants
+	public static final double EWMA_ALPHA        = 0.3; // Weight of the latest measurement
+	public static final double LATENCY_PERCENTILE = 95;
+	private static final int LATENCY_SAMPLES     = 64;
+	private static final long MIN_LATENCY_NS     = 10000000; // No block is late before 10 ms
+
+	/**
+	 * The sizes and latencies of the latest blocks of a server.
+	 *
+	 */
+	private static class LatencyWindow {
+
+		private final long[][] samples = new long[LATENCY_SAMPLES][];
+		private int count = 0;
+		private int next = 0;
+
+		/**
+		 * Adds a sample, replacing the oldest one when the window is full.
+		 * @param instructions The number of instructions of the block.
+		 * @param elapsedNs The latency of the block, in nanoseconds.
+		 */
+		synchronized void add(final int instructions, final long elapsedNs) {
+			samples[next] = new long[] { instructions, elapsedNs };
+			next = (next + 1) % LATENCY_SAMPLES;
+			count = Math.min(count + 1, LATENCY_SAMPLES);
+		}
+
+		/**
+		 * Returns a copy of the samples.
+		 * @return The samples, as (instructions, latency in nanoseconds) pairs.
+		 */
+		synchronized long[][] getSamples() {
+			return Arrays.copyOf(samples, count);
+		}
+	}
+
+	// Member variables
+	private final Map<ServerAPI, Integer> capacities = new ConcurrentHashMap<>();
+	private final Map<ServerAPI, Double> rates = new ConcurrentHashMap<>();
+	private final Map<ServerAPI, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+	/**
+	 * Records the capacity advertised by a server.
+	 * @param server The server.
+	 * @param capacity The capacity.
+	 */
+	public void setCapacity(final ServerAPI server, final int capacity) {
+		capacities.put(server, Math.max(capacity, 1));
+	}
+
+	/**
+	 * Records a completed block in the throughput average of a server.
+	 * @param server The server.
+	 * @param instructions The number of instructions of the block.
+	 * @param elapsedNs The time taken by the server to return the block, in nanoseconds.
+	 */
+	public void record(final ServerAPI server, final int instructions, final long elapsedNs) {
+		if (instructions <= 0 || elapsedNs <= 0) {
+			return;
+		}
+		final double rate = instructions * 1e9d / elapsedNs;
+		rates.merge(server, rate, (average, latest) -> average + EWMA_ALPHA * (latest - average));
+		latencies.computeIfAbsent(server, key -> new LatencyWindow()).add(instructions, elapsedNs);
+	}
+
+	/**
+	 * Returns the time a server should take for a block. 
+	 * The latest latencies are fitted by least squares to a fixed cost per call plus a cost per instruction, 
+	 * and the fit is scaled by the LATENCY_PERCENTILE of the ratios of the measured to the fitted latencies. 
+	 * Servers without measurements are estimated from the latencies of all servers.
+	 * @param server The server.
+	 * @param instructions The number of instructions of the block.
+	 * @return The expected latency, in nanoseconds, at least MIN_LATENCY_NS, or 0 if no server was measured yet.
+	 */
+	public long getExpectedLatencyNs(final ServerAPI server, final int instructions) {
+		final LatencyWindow window = latencies.get(server);
+		long[][] samples = window != null ? window.getSamples() : new long[0][];
+		if (samples.length == 0) {
+			for (final LatencyWindow other : latencies.values()) {
+				final long[][] otherSamples = other.getSamples();
+				final int length = samples.length;
+				samples = Arrays.copyOf(samples, length + otherSamples.length);
+				System.arraycopy(otherSamples, 0, samples, length, otherSamples.length);
+			}
+		}
+		if (samples.length == 0) {
+			return 0;
+		}
+		double meanInstructions = 0;
+		double meanElapsed = 0;
+		for (final long[] sample : samples) {
+			meanInstructions += sample[0];
+			meanElapsed += sample[1];
+		}
+		meanInstructions /= samples.length;
+		meanElapsed /= samples.length;
+		double covariance = 0;
+		double variance = 0;
+		for (final long[] sample : samples) {
+			covariance += (sample[0] - meanInstructions) * (sample[1] - meanElapsed);
+			variance += (sample[0] - meanInstructions) * (sample[0] - meanInstructions);
+		}
+		double perInstruction = variance > 0 ? covariance / variance : meanElapsed / meanInstructions;
+		double base = variance > 0 ? meanElapsed - perInstruction * meanInstructions : 0;
+		if (perInstruction < 0) {
+			// Noise hides any cost per instruction
+			perInstruction = 0;
+			base = meanElapsed;
+		}
+		else if (base < 0) {
+			// Noise hides any cost per call
+			perInstruction = meanElapsed / meanInstructions;
+			base = 0;
+		}
+		final double[] ratios = new double[samples.length];
+		for (int i = 0; i < samples.length; ++i) {
+			ratios[i] = samples[i][1] / (base + perInstruction * samples[i][0]);
+		}
+		Arrays.sort(ratios);
+		final int rank = (int) Math.ceil(LATENCY_PERCENTILE / 100 * ratios.length) - 1;
+		final double expectedNs = ratios[Math.max(rank, 0)] * (base + perInstruction * instructions);
+		return Math.max((long) expectedNs, MIN_LATENCY_NS);
+	}
+
+	/**
+	 * Forgets a server.
+	 * @param server The server.
+	 */
+	public void remove(final ServerAPI server) {
+		capacities.remove(server);
+		rates.remove(server);
+		latencies.remove(server);
+	}
+
+	/**
+	 * Returns the measured throughput of a server, or its estimation if it was not measured yet.
+	 * @param server The server.
+	 * @param servers The servers the estimation is relative to.
+	 * @return The weight of the server.
+	 */
+	public double getWeight(final ServerAPI server, final Collection<ServerAPI> servers) {
+		final Double rate = rates.get(server);
+		if (rate != null) {
+			return rate;
+		}
+		double measuredRates = 0;
+		int measuredCapacities = 0;
+		for (final ServerAPI other : servers) {
+			final Double otherRate = rates.get(other);
+			if (otherRate != null) {
+				measuredRates += otherRate;
+				measuredCapacities += getCapacity(other);
+			}
+		}
+		return measuredCapacities == 0
+				? getCapacity(server)
+				: getCapacity(server) * measuredRates / measuredCapacities;
+	}
+
+	/**
+	 * Returns the share of the work a server should compute among specified servers.
+	 * @param server The server.
+	 * @param servers The servers sharing the work, including the server.
+	 * @return The share, between 0 and 1.
+	 */
+	public double getShare(final ServerAPI server, final Collection<ServerAPI> servers) {
+		double total = 0;
+		for (final ServerAPI other : servers) {
+			total += getWeight(other, servers);
+		}
+		return total <= 0 ? 1 : getWeight(server, servers) / total;
+	}
+
+	/**
+	 * Returns the advertised capacity of a server.
+	 * @param server The server.
+	 * @return The capacity, or 1 if unknown.
+	 */
+	private int getCapacity(final ServerAPI server) {
+		final Integer capacity = capacities.get(server);
+		return capacity == null ? 1 : capacity;
+	}
+}
@@ -0,0 +1,67 @@
+package Server;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The deadline and cancellation state of a call, checked cooperatively by the computations.
+ *
+ */
+public class CancellationToken {
+
+	// A token that never aborts
+	public static final CancellationToken NONE = new CancellationToken(0);
+
+	// Member variables
+	private final boolean hasDeadline;
+	private final long deadlineNs;
+	private volatile boolean isCancelled = false;
+
+	/**
+	 * Constructor.
+	 * @param timeoutMs The time allowed to the call, in milliseconds, or 0 (or less) for no deadline.
+	 */
+	public CancellationToken(final long timeoutMs) {
+		hasDeadline = timeoutMs > 0;
+		deadlineNs = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(timeoutMs, 0));
+	}
+
+	/**
+	 * Cancels the call.
+	 */
+	public void cancel() {
+		isCancelled = true;
+	}
+
+	/**
+	 * Checks whether the call was cancelled or its deadline has passed.
+	 * @return true if the call should be aborted.
+	 */
+	public boolean isAborted() {
+		return getAbortReason() != null;
+	}
+
+	/**
+	 * Returns why the call should be aborted.
+	 * @return "Cancelled", "Deadline exceeded", or null if the call should go on.
+	 */
+	public String getAbortReason() {
+		if (isCancelled) {
+			return "Cancelled";
+		}
+		if (hasDeadline && System.nanoTime() - deadlineNs > 0) {
+			return "Deadline exceeded";
+		}
+		return null;
+	}
+
+	/**
+	 * Aborts the current computation if the call was cancelled or its deadline has passed.
+	 * @throws CancellationException If the call should be aborted.
+	 */
+	public void check() {
+		final String reason = getAbortReason();
+		if (reason != null) {
+			throw new CancellationException(reason);
+		}
+	}
+}
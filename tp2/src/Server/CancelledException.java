@@ -0,0 +1,17 @@
+package Server;
+/**
+ * Custom Exception for server tasks aborted because they were cancelled or their deadline passed.
+ *
+ */
+public class CancelledException extends Exception {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Message constructor
+	 * @param message An informative message.
+	 */
+	public CancelledException(final String message) {
+		super(message);
+	}
+}
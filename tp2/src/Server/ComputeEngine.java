@@ -0,0 +1,48 @@
+package Server;
+
+/**
+ * An implementation of the server operations.
+ *
+ */
+public interface ComputeEngine {
+
+	/**
+	 * Computes the Pell number of specified operand.
+	 * @param x The operand used to compute the Pell number.
+	 * @return The Pell number of specified operand.
+	 */
+	int pell(int x);
+
+	/**
+	 * Computes the highest prime factor of specified operand.
+	 * @param x The operand to factorize.
+	 * @return The highest prime factor of specified operand, or 0 if there is none.
+	 */
+	int prime(int x);
+
+	/**
+	 * Computes the Pell number of specified operand, aborting if the call is cancelled. 
+	 * By default, the token is only checked before computing.
+	 * @param x The operand used to compute the Pell number.
+	 * @param token The cancellation token of the call.
+	 * @return The Pell number of specified operand.
+	 * @throws java.util.concurrent.CancellationException If the call was cancelled or its deadline passed.
+	 */
+	default int pell(int x, CancellationToken token) {
+		token.check();
+		return pell(x);
+	}
+
+	/**
+	 * Computes the highest prime factor of specified operand, aborting if the call is cancelled. 
+	 * By default, the token is only checked before computing.
+	 * @param x The operand to factorize.
+	 * @param token The cancellation token of the call.
+	 * @return The highest prime factor of specified operand, or 0 if there is none.
+	 * @throws java.util.concurrent.CancellationException If the call was cancelled or its deadline passed.
+	 */
+	default int prime(int x, CancellationToken token) {
+		token.check();
+		return prime(x);
+	}
+}
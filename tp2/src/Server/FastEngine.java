@@ -0,0 +1,112 @@
+package Server;
+
+/**
+ * A fast compute engine producing the exact same results as the reference engine.
+ * Pell numbers are computed by 2x2 matrix exponentiation in O(log x). 
+ * Since int arithmetic wraps modulo 2^32 in both implementations, overflowed results are identical. 
+ * Prime factors are read from a smallest-prime-factor sieve in O(log x), 
+ * falling back to trial division up to sqrt(x) beyond the sieve limit.
+ *
+ */
+public class FastEngine implements ComputeEngine {
+
+	// Member variables
+	private final int[] smallestPrimeFactor;
+
+	/**
+	 * Constructor.
+	 * @param sieveLimit The highest operand answered from the sieve.
+	 */
+	public FastEngine(final int sieveLimit) {
+		smallestPrimeFactor = buildSieve(Math.max(sieveLimit, 1));
+	}
+
+	/**
+	 * Computes the Pell number of specified operand.
+	 * @param x The operand used to compute the Pell number.
+	 * @return The Pell number of specified operand.
+	 */
+	@Override
+	public int pell(final int x) {
+		if (x < 0) {
+			// Undefined by the reference implementation: keep its behavior
+			return Operations.pell(x);
+		}
+		// [[2, 1], [1, 0]]^n = [[P(n+1), P(n)], [P(n), P(n-1)]]
+		int a = 1, b = 0, c = 0, d = 1; // Result, starts at identity
+		int e = 2, f = 1, g = 1, h = 0; // Base, squared at every step
+		for (int n = x; n > 0; n >>>= 1) {
+			if ((n & 1) == 1) {
+				final int na = a * e + b * g;
+				final int nb = a * f + b * h;
+				final int nc = c * e + d * g;
+				final int nd = c * f + d * h;
+				a = na; b = nb; c = nc; d = nd;
+			}
+			final int ne = e * e + f * g;
+			final int nf = e * f + f * h;
+			final int ng = g * e + h * g;
+			final int nh = g * f + h * h;
+			e = ne; f = nf; g = ng; h = nh;
+		}
+		return b;
+	}
+
+	/**
+	 * Computes the highest prime factor of specified operand.
+	 * @param x The operand to factorize.
+	 * @return The highest prime factor of specified operand, or 0 if there is none.
+	 */
+	@Override
+	public int prime(final int x) {
+		if (x <= 1) {
+			return 0;
+		}
+		if (x < smallestPrimeFactor.length) {
+			int highestPrime = 0;
+			for (int n = x; n > 1; n /= smallestPrimeFactor[n]) {
+				highestPrime = smallestPrimeFactor[n];
+			}
+			return highestPrime;
+		}
+		return primeByTrialDivision(x);
+	}
+
+	/**
+	 * Computes the highest prime factor by trial division up to sqrt(x).
+	 * @param x The operand to factorize, greater than 1.
+	 * @return The highest prime factor of specified operand.
+	 */
+	private static int primeByTrialDivision(final int x) {
+		int n = x;
+		int highestPrime = 0;
+		for (int i = 2; (long) i * i <= n; ++i) {
+			while (n % i == 0) {
+				highestPrime = i;
+				n /= i;
+			}
+		}
+		return n > 1 ? n : highestPrime;
+	}
+
+	/**
+	 * Builds the smallest-prime-factor table for all integers up to specified limit.
+	 * @param limit The highest integer of the table.
+	 * @return The table, where entry n holds the smallest prime factor of n (n >= 2).
+	 */
+	private static int[] buildSieve(final int limit) {
+		final int[] sieve = new int[limit + 1];
+		for (int i = 2; i <= limit; ++i) {
+			if (sieve[i] != 0) {
+				continue;
+			}
+			sieve[i] = i;
+			for (long j = (long) i * i; j <= limit; j += i) {
+				if (sieve[(int) j] == 0) {
+					sieve[(int) j] = i;
+				}
+			}
+		}
+		return sieve;
+	}
+}
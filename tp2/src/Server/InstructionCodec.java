@@ -0,0 +1,86 @@
+package Server;
+import java.util.List;
+
+import Server.ServerAPI.Operation;
+
+/**
+ * Packs text instructions such as "pell 24" into (opcode, operand) int pairs. 
+ * The opcode is the ordinal of the ServerAPI.Operation.
+ *
+ */
+public final class InstructionCodec {
+
+	// Cached since Operation.values() returns a new array on every call
+	private static final Operation[] OPERATIONS = Operation.values();
+
+	/**
+	 * Utility class, not instantiable.
+	 */
+	private InstructionCodec() {
+
+	}
+
+	/**
+	 * Packs a list of instructions.
+	 * @param instructions The instructions to pack.
+	 * @return The packed instructions, two ints per instruction.
+	 * @throws IllegalArgumentException If an instruction is invalid.
+	 */
+	public static int[] encode(final List<String> instructions) throws IllegalArgumentException {
+		final int[] packed = new int[2 * instructions.size()];
+		int offset = 0;
+		for (final String instruction : instructions) {
+			encode(instruction, packed, offset);
+			offset += 2;
+		}
+		return packed;
+	}
+
+	/**
+	 * Packs an instruction at specified offset.
+	 * @param instruction The instruction to pack.
+	 * @param packed The destination array.
+	 * @param offset The index of the opcode in the destination array.
+	 * @throws IllegalArgumentException If the instruction is invalid.
+	 */
+	public static void encode(final String instruction, final int[] packed, final int offset)
+			throws IllegalArgumentException {
+		final String[] elements = instruction.split(" ");
+		if (elements.length < 2) {
+			throw new IllegalArgumentException("Too few arguments");
+		}
+		// Assume only one argument is used
+		packed[offset] = getOperation(elements[0]).ordinal();
+		packed[offset + 1] = Integer.parseInt(elements[1]);
+	}
+
+	/**
+	 * Converts an opcode to its ServerAPI.Operation.
+	 * @param opcode The opcode to convert.
+	 * @return The corresponding ServerAPI.Operation.
+	 * @throws IllegalArgumentException If the opcode is not supported.
+	 */
+	public static Operation decode(final int opcode) throws IllegalArgumentException {
+		if (opcode < 0 || opcode >= OPERATIONS.length) {
+			throw new IllegalArgumentException("Unsupported opcode: " + opcode);
+		}
+		return OPERATIONS[opcode];
+	}
+
+	/**
+	 * Converts a String to a safe ServerAPI.Operation.
+	 * @param operation The input String to convert.
+	 * @return The corresponding ServerAPI.Operation.
+	 * @throws IllegalArgumentException If the input String cannot be converted.
+	 */
+	private static Operation getOperation(final String operation) throws IllegalArgumentException {
+		switch(operation) {
+			case "pell":
+				return Operation.PELL;
+			case "prime":
+				return Operation.PRIME;
+			default:
+				throw new IllegalArgumentException("Unsupported operation: \"" + operation + "\"");
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package Server;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe histogram with power-of-two buckets. 
+ * Bucket i counts the values v such that 2^i <= v < 2^(i+1), bucket 0 also counts 0.
+ *
+ */
+public class LatencyHistogram {
+
+	// Constants
+	private static final int NB_BUCKETS = 64;
+
+	// Member variables
+	private final AtomicLongArray buckets = new AtomicLongArray(NB_BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+
+	/**
+	 * Records a value.
+	 * @param value The value to record, negative values are recorded as 0.
+	 */
+	public void record(final long value) {
+		final long safeValue = Math.max(value, 0);
+		buckets.incrementAndGet(bucketOf(safeValue));
+		count.incrementAndGet();
+		sum.addAndGet(safeValue);
+	}
+
+	/**
+	 * Returns the number of recorded values.
+	 * @return The count.
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Returns the sum of recorded values.
+	 * @return The sum.
+	 */
+	public long getSum() {
+		return sum.get();
+	}
+
+	/**
+	 * Returns the mean of recorded values.
+	 * @return The mean, or 0 if nothing was recorded.
+	 */
+	public double getMean() {
+		final long n = count.get();
+		return n == 0 ? 0 : (double) sum.get() / n;
+	}
+
+	/**
+	 * Returns an upper bound of specified percentile, at power-of-two resolution.
+	 * @param percentile The percentile, between 0 and 100.
+	 * @return The exclusive upper bound of the bucket containing the percentile.
+	 */
+	public long getPercentile(final double percentile) {
+		final long[] snapshot = getBuckets();
+		long total = 0;
+		for (final long bucket : snapshot) {
+			total += bucket;
+		}
+		final long target = (long) Math.ceil(percentile / 100.0d * total);
+		long cumulated = 0;
+		for (int i = 0; i < snapshot.length; ++i) {
+			cumulated += snapshot[i];
+			if (cumulated >= Math.max(target, 1)) {
+				return i == NB_BUCKETS - 1 ? Long.MAX_VALUE : 1L << (i + 1);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns a copy of the bucket counts.
+	 * @return The bucket counts, bucket i for values in [2^i, 2^(i+1)).
+	 */
+	public long[] getBuckets() {
+		final long[] snapshot = new long[NB_BUCKETS];
+		for (int i = 0; i < NB_BUCKETS; ++i) {
+			snapshot[i] = buckets.get(i);
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Returns the bucket of a value.
+	 * @param value A non-negative value.
+	 * @return The bucket index.
+	 */
+	private static int bucketOf(final long value) {
+		return value == 0 ? 0 : 63 - Long.numberOfLeadingZeros(value);
+	}
+}
@@ -0,0 +1,38 @@
+package Server;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+/**
+ * The API through which servers join and leave the LoadBalancer.
+ *
+ */
+public interface MembershipAPI extends Remote {
+
+	// Name of the LoadBalancer in the RMI registry for servers
+	String BINDING_NAME = "membership";
+
+	/**
+	 * Adds a server to the cluster. It takes part in the next round of every execution.
+	 * @param server The server stub.
+	 * @param load The current load and capacity of the server.
+	 * @throws RemoteException If an exception occurred.
+	 */
+	void register(ServerAPI server, ServerLoad load) throws RemoteException;
+
+	/**
+	 * Tells that a registered server is alive.
+	 * @param server The server stub.
+	 * @param load The current load and capacity of the server.
+	 * @return false if the server is not part of the cluster (never registered, or unregistered after a failure) 
+	 * and must register again.
+	 * @throws RemoteException If an exception occurred.
+	 */
+	boolean heartbeat(ServerAPI server, ServerLoad load) throws RemoteException;
+
+	/**
+	 * Removes a server from the cluster, before it shuts down.
+	 * @param server The server stub.
+	 * @throws RemoteException If an exception occurred.
+	 */
+	void leave(ServerAPI server) throws RemoteException;
+}
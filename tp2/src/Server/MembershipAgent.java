@@ -0,0 +1,92 @@
+package Server;
+import java.rmi.NotBoundException;
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registers a server with the LoadBalancer and sends it periodic heartbeats carrying the server load and capacity. 
+ * The server registers again whenever the LoadBalancer no longer knows it, such as after a restart of either side.
+ *
+ */
+public class MembershipAgent {
+
+	// Member variables
+	private final ServerAPI server;
+	private final ServerAPI stub;
+	private final String hostname;
+	private final int portRmi;
+	private volatile MembershipAPI loadBalancer = null;
+
+	/**
+	 * Constructor.
+	 * @param server The local server, queried for its load.
+	 * @param stub The exported stub of the server, sent to the LoadBalancer.
+	 * @param hostname The LoadBalancer address.
+	 * @param portRmi The port of the RMI registry of the LoadBalancer.
+	 */
+	public MembershipAgent(final ServerAPI server, final ServerAPI stub, final String hostname, final int portRmi) {
+		this.server = server;
+		this.stub = stub;
+		this.hostname = hostname;
+		this.portRmi = portRmi;
+	}
+
+	/**
+	 * Starts sending heartbeats, and leaves the cluster when the JVM shuts down.
+	 * @param intervalMs The time between heartbeats, in milliseconds.
+	 */
+	public void start(final long intervalMs) {
+		final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			final Thread thread = new Thread(runnable, "membership-heartbeat");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(this::heartbeat, 0, intervalMs, TimeUnit.MILLISECONDS);
+		Runtime.getRuntime().addShutdownHook(new Thread(this::leave, "membership-leave"));
+	}
+
+	/**
+	 * Sends a heartbeat, registering first if the LoadBalancer does not know the server. 
+	 * An unreachable LoadBalancer is looked up again at the next heartbeat.
+	 */
+	private void heartbeat() {
+		try {
+			final ServerLoad load = server.getLoad();
+			if (loadBalancer == null) {
+				loadBalancer = (MembershipAPI) LocateRegistry.getRegistry(hostname, portRmi)
+						.lookup(MembershipAPI.BINDING_NAME);
+				loadBalancer.register(stub, load);
+				System.out.println("Registered with load balancer " + hostname);
+			}
+			else if (!loadBalancer.heartbeat(stub, load)) {
+				loadBalancer.register(stub, load);
+				System.out.println("Registered again with load balancer " + hostname);
+			}
+		}
+		catch (final RemoteException | NotBoundException e) {
+			if (loadBalancer != null) {
+				System.err.println("Lost load balancer " + hostname + ": " + e.getMessage());
+			}
+			loadBalancer = null;
+		}
+	}
+
+	/**
+	 * Leaves the cluster, if registered.
+	 */
+	private void leave() {
+		final MembershipAPI current = loadBalancer;
+		if (current == null) {
+			return;
+		}
+		try {
+			current.leave(stub);
+		}
+		catch (final RemoteException e) {
+			// The LoadBalancer will notice the missing heartbeats
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package Server;
+import java.io.Serializable;
+
+/**
+ * Results of a streaming job completed since the previous poll.
+ *
+ */
+public class PartialResults implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int[] indices;
+	private final int[] values;
+	private final boolean done;
+	private final String error;
+
+	/**
+	 * Constructor.
+	 * @param indices The index in the block of each new result.
+	 * @param values The new results.
+	 * @param done Whether the job has delivered all its results.
+	 * @param error The error that interrupted the job, or null.
+	 */
+	public PartialResults(final int[] indices, final int[] values, final boolean done, final String error) {
+		this.indices = indices;
+		this.values = values;
+		this.done = done;
+		this.error = error;
+	}
+
+	/**
+	 * Returns the index in the block of each new result.
+	 * @return The indices.
+	 */
+	public int[] getIndices() {
+		return indices;
+	}
+
+	/**
+	 * Returns the new results.
+	 * @return The results, in the same order as the indices.
+	 */
+	public int[] getValues() {
+		return values;
+	}
+
+	/**
+	 * Checks whether the job has delivered all its results.
+	 * @return true if no other result will come.
+	 */
+	public boolean isDone() {
+		return done;
+	}
+
+	/**
+	 * Returns the error that interrupted the job, if any. 
+	 * Results completed before the error are still delivered.
+	 * @return The error message, or null.
+	 */
+	public String getError() {
+		return error;
+	}
+}
@@ -0,0 +1,85 @@
+package Server;
+
+/**
+ * The reference compute engine, backed by the provided non-optimal Operations. 
+ * Cancellable computations replicate Operations and check the token while they run.
+ *
+ */
+public class ReferenceEngine implements ComputeEngine {
+
+	// Constants
+	private static final int PELL_CHECK_THRESHOLD = 20; // Smaller Pell numbers complete in a few milliseconds
+	private static final int PRIME_CHECK_INTERVAL = 256;
+
+	/**
+	 * Computes the Pell number of specified operand.
+	 * @param x The operand used to compute the Pell number.
+	 * @return The Pell number of specified operand.
+	 */
+	@Override
+	public int pell(final int x) {
+		return Operations.pell(x);
+	}
+
+	/**
+	 * Computes the highest prime factor of specified operand.
+	 * @param x The operand to factorize.
+	 * @return The highest prime factor of specified operand, or 0 if there is none.
+	 */
+	@Override
+	public int prime(final int x) {
+		return Operations.prime(x);
+	}
+
+	/**
+	 * Computes the Pell number of specified operand, checking the token at every large recursion.
+	 * @param x The operand used to compute the Pell number.
+	 * @param token The cancellation token of the call.
+	 * @return The Pell number of specified operand.
+	 */
+	@Override
+	public int pell(final int x, final CancellationToken token) {
+		if (x < PELL_CHECK_THRESHOLD) {
+			return Operations.pell(x);
+		}
+		token.check();
+		return 2 * pell(x - 1, token) + pell(x - 2, token);
+	}
+
+	/**
+	 * Computes the highest prime factor of specified operand, checking the token every PRIME_CHECK_INTERVAL candidates.
+	 * @param x The operand to factorize.
+	 * @param token The cancellation token of the call.
+	 * @return The highest prime factor of specified operand, or 0 if there is none.
+	 */
+	@Override
+	public int prime(final int x, final CancellationToken token) {
+		int highestPrime = 0;
+		for (int i = 1; i <= x; ++i) {
+			if (i % PRIME_CHECK_INTERVAL == 0) {
+				token.check();
+			}
+			if (isPrime(i) && x % i == 0 && i > highestPrime) {
+				highestPrime = i;
+			}
+		}
+		return highestPrime;
+	}
+
+	/**
+	 * Checks whether specified number is prime, as Operations does.
+	 * @param x The number.
+	 * @return true if the number is prime.
+	 */
+	private static boolean isPrime(final int x) {
+		if (x <= 1) {
+			return false;
+		}
+		for (int i = 2; i < x; ++i) {
+			if (x % i == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -5,13 +5,33 @@ package Server;
  */
 public class RejectedException extends Exception {
 
-	private static final long serialVersionUID = 2L;
+	private static final long serialVersionUID = 3L;
+
+	private final int suggestedBlockSize;
 
 	/**
 	 * Message constructor
 	 * @param message An informative message.
 	 */
 	public RejectedException(final String message) {
+		this(message, -1);
+	}
+
+	/**
+	 * Message constructor with a block size hint.
+	 * @param message An informative message.
+	 * @param suggestedBlockSize The largest block size the server would currently accept, or -1 if unknown.
+	 */
+	public RejectedException(final String message, final int suggestedBlockSize) {
 		super(message);
+		this.suggestedBlockSize = suggestedBlockSize;
+	}
+
+	/**
+	 * Returns the largest block size the server would have accepted when rejecting.
+	 * @return The suggested block size, or -1 if unknown.
+	 */
+	public int getSuggestedBlockSize() {
+		return suggestedBlockSize;
 	}
 }
@@ -7,34 +7,67 @@ import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Map;
 import java.util.Properties;
-import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-import LoadBalancer.LoadBalancer;
+import javax.management.JMException;
 
 /**
  * The server computes tasks. 
  * In non-secure mode, it can send false results at specified rate. 
- * It will reject task lists that are too big on a certain rate based on its capacity.
+ * It computes at most capacity instructions at once, and admitted instructions beyond it wait in a queue. 
+ * It admits task lists while its capacity and its bounded queue have room for them, 
+ * and rejects them with a suggested block size otherwise. 
+ * Identical operations computed concurrently are computed once and shared. 
+ * Calls carry a deadline and can be cancelled, aborting the instructions not completed yet. 
+ * If a LoadBalancer address is configured, the server registers with it and sends it heartbeats.
  *
  */
 public class Server implements ServerAPI {
 
 	// Configuration files
 	public static final String CONFIG_SERVER_FILE = "../config/server.properties";
-	public static final String CONFIG_SHARED_FILE = LoadBalancer.CONFIG_SHARED_FILE;
+	public static final String CONFIG_SHARED_FILE = "../config/shared.properties";
+
+	// Constants
+	private static final long JOB_EXPIRY_MS = 60000; // 1 minute
+	private static final long SLOT_POLL_MS  = 10;    // Cancellation check period while queued
 
 	// Member variables
 	private final int portRmi;
 	private final int portServer;
 	private final int capacity;
+	private final int queueLength;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger queued = new AtomicInteger();
+	private final Semaphore computeSlots;
+	private final AtomicLong nextJobId = new AtomicLong();
+	private final Map<Long, StreamingJob> jobs = new ConcurrentHashMap<>();
+	private final Map<Long, CompletableFuture<Integer>> computations = new ConcurrentHashMap<>();
+	private final Map<Long, CancellationToken> calls = new ConcurrentHashMap<>();
 	private int falseResultRate;
-	private final Random random;
+	private final ForkJoinPool pool;
+	private final ComputeEngine engine;
+	private final ServerMetrics metrics = new ServerMetrics(inFlight);
+	private final long metricsLogIntervalMs;
+	private final boolean isCoalescing;
+	private final String loadBalancerHostname;
+	private final long heartbeatIntervalMs;
 
 	/**
 	 * Program entry point.
-	 * @param args Command-line arguments - must contain a capacity and a false result rate.
+	 * @param args Command-line arguments - must contain a capacity (or "auto" for the number of cores) and a false result rate.
 	 */
 	public static void main(String[] args) {
 		if (args.length < 2) {
@@ -44,7 +77,9 @@ public class Server implements ServerAPI {
 		int capacity = 0;
 		int falseResultRate = 0;
 		try {
-			capacity = Integer.parseInt(args[0]);
+			capacity = args[0].equals("auto")
+					? Runtime.getRuntime().availableProcessors()
+					: Integer.parseInt(args[0]);
 			falseResultRate = Integer.parseInt(args[1]);
 		}
 		catch (final NumberFormatException e) {
@@ -71,19 +106,43 @@ public class Server implements ServerAPI {
 		int portRmi = 0;
 		int portServer = 0;
 		boolean isSecure = false;
+		ComputeEngine engine = null;
+		int queueLength = 0;
+		long metricsLogIntervalMs = 0;
+		boolean isCoalescing = true;
+		String loadBalancerHostname = "";
+		long heartbeatIntervalMs = 0;
 		try {
 			portRmi = getRmiPortFromConfig();
 			portServer = getServerPortFromConfig();
 			isSecure = getSecureModeFromConfig();
+			engine = getEngineFromConfig();
+			queueLength = Integer.parseInt(
+					getServerPropertyFromConfig("queueLength", String.valueOf(this.capacity)));
+			metricsLogIntervalMs = Long.parseLong(getServerPropertyFromConfig("metricsLogIntervalMs", "0"));
+			isCoalescing = Boolean.parseBoolean(getServerPropertyFromConfig("coalesce", "true"));
+			loadBalancerHostname = getServerPropertyFromConfig("loadBalancerHostname", "");
+			heartbeatIntervalMs = Long.parseLong(getServerPropertyFromConfig("heartbeatIntervalMs", "1000"));
+			if (heartbeatIntervalMs < 1) {
+				throw new NumberFormatException("heartbeatIntervalMs must be positive");
+			}
 		}
-		catch (final IOException e) {
+		catch (final IOException | IllegalArgumentException e) {
 			System.err.println("Could not read config file: " + e.getMessage());
 			System.exit(1);
 		}
 		setFalseRate(falseResultRate, isSecure);
 		this.portRmi = portRmi;
 		this.portServer = portServer;
-		random = new Random(System.nanoTime());
+		this.engine = engine;
+		this.queueLength = Math.max(queueLength, 0);
+		// Fair so that queued instructions start in arrival order
+		this.computeSlots = new Semaphore(this.capacity, true);
+		this.metricsLogIntervalMs = metricsLogIntervalMs;
+		this.isCoalescing = isCoalescing;
+		this.loadBalancerHostname = loadBalancerHostname;
+		this.heartbeatIntervalMs = heartbeatIntervalMs;
+		pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
 	};
 
 	/**
@@ -99,6 +158,13 @@ public class Server implements ServerAPI {
 			LocateRegistry.getRegistry(portRmi)
 					.rebind("server", stub);
 			System.out.println("Server ready.");
+			if (!loadBalancerHostname.isEmpty()) {
+				new MembershipAgent(this, stub, loadBalancerHostname, portRmi).start(heartbeatIntervalMs);
+			}
+			metrics.register();
+			if (metricsLogIntervalMs > 0) {
+				metrics.startPeriodicLog(metricsLogIntervalMs);
+			}
 		}
 		catch (final ConnectException e) {
 			System.err.println("Could not connect to RMI registry. Is rmiregistry running?");
@@ -109,6 +175,9 @@ public class Server implements ServerAPI {
 			System.err.println(e.getMessage());
 			System.exit(1);
 		}
+		catch (final JMException e) {
+			System.err.println("Could not register metrics: " + e.getMessage());
+		}
 	};
 
 	/**
@@ -139,6 +208,72 @@ public class Server implements ServerAPI {
 		return Integer.parseInt(properties.getProperty("portServer"));
 	}
 
+	/**
+	 * Builds the compute engine selected in configuration file. 
+	 * The fast engine is cross-checked against the reference engine 
+	 * on the configured verification ranges before being used.
+	 * @return The compute engine.
+	 * @throws IOException If an error occurred when reading from the input stream.
+	 * @throws IllegalArgumentException If the engine is unknown or a value is not a parsable integer.
+	 */
+	private ComputeEngine getEngineFromConfig() throws IOException, IllegalArgumentException {
+		final String engineName = getServerPropertyFromConfig("engine", "reference");
+		switch (engineName) {
+			case "reference":
+				return new ReferenceEngine();
+			case "fast":
+				final FastEngine engine = new FastEngine(
+						Integer.parseInt(getServerPropertyFromConfig("sieveLimit", "100000")));
+				verifyEngine(engine,
+						Integer.parseInt(getServerPropertyFromConfig("verifyPellRange", "0")),
+						Integer.parseInt(getServerPropertyFromConfig("verifyPrimeRange", "0")));
+				return engine;
+			default:
+				throw new IllegalArgumentException("Unsupported engine: \"" + engineName + "\"");
+		}
+	}
+
+	/**
+	 * Extracts an optional property from server configuration file.
+	 * @param key The property key.
+	 * @param defaultValue The value returned if the property is not set.
+	 * @return The property value.
+	 * @throws IOException If an error occurred when reading from the input stream.
+	 */
+	private String getServerPropertyFromConfig(final String key, final String defaultValue) throws IOException {
+		final InputStream input = new FileInputStream(CONFIG_SERVER_FILE);
+		final Properties properties = new Properties();
+		properties.load(input);
+		input.close();
+		return properties.getProperty(key, defaultValue).trim();
+	}
+
+	/**
+	 * Cross-checks an engine against the reference engine. 
+	 * Exits if any result differs, since the server would otherwise send false results.
+	 * @param engine The engine to verify.
+	 * @param pellRange The highest Pell operand to verify (the reference is exponential).
+	 * @param primeRange The highest prime operand to verify.
+	 */
+	private void verifyEngine(final ComputeEngine engine, final int pellRange, final int primeRange) {
+		final ComputeEngine reference = new ReferenceEngine();
+		for (int x = 0; x <= pellRange; ++x) {
+			if (engine.pell(x) != reference.pell(x)) {
+				System.err.println("Engine verification failed: pell " + x);
+				System.exit(1);
+			}
+		}
+		for (int x = 0; x <= primeRange; ++x) {
+			if (engine.prime(x) != reference.prime(x)) {
+				System.err.println("Engine verification failed: prime " + x);
+				System.exit(1);
+			}
+		}
+		if (pellRange > 0 || primeRange > 0) {
+			System.out.println("Engine verified (pell 0-" + pellRange + ", prime 0-" + primeRange + ").");
+		}
+	}
+
 	/**
 	 * Extracts secure mode from configuration file.
 	 * @return Secure mode.
@@ -174,7 +309,7 @@ public class Server implements ServerAPI {
 	/**
 	 * Computes an ArrayList of instructions and return corresponding results. 
 	 * Some results can be false based on specified rate. 
-	 * Some instructions can be rejected based on capacity and task volume.
+	 * Instructions are rejected when they do not fit in the free capacity and queue slots.
 	 * @param instructions The instructions to compute.
 	 * @return Results.
 	 * @throws RejectedException If the instructions are rejected.
@@ -182,33 +317,256 @@ public class Server implements ServerAPI {
 	 */
 	@Override
 	public ArrayList<Integer> doOperations(ArrayList<String> instructions) throws RejectedException, RemoteException {
-		if (!accept(instructions)) {
-			throw new RejectedException("Too many operations");
-		}
-		final ArrayList<Integer> results = new ArrayList<>();
-		for (final String instruction : instructions) {
-			final String[] elements = instruction.split(" ");
-			if (elements.length < 1) {
-				throw new RemoteException("Invalid instruction " + instruction);
+		admit(instructions.size());
+		try {
+			final int[] packed;
+			try {
+				packed = InstructionCodec.encode(instructions);
 			}
-			final String operation = elements[0];
-			final String[] operands = Arrays.copyOfRange(elements, 1, elements.length);
-			if (operands.length < 1) {
-				throw new RemoteException("Too few arguments");
+			catch (final IllegalArgumentException e) {
+				throw new RemoteException(e.getMessage());
 			}
-			// From this point on, assume only one argument is used and no other operations exist
-			final int operand;
+			final ArrayList<Integer> results = new ArrayList<>(instructions.size());
+			for (final int result : compute(packed, CancellationToken.NONE)) {
+				results.add(result);
+			}
+			return results;
+		}
+		finally {
+			release(instructions.size());
+		}
+	}
+
+	/**
+	 * Computes packed instructions and return corresponding results. 
+	 * Some results can be false based on specified rate. 
+	 * Instructions are rejected when they do not fit in the free capacity and queue slots. 
+	 * The computation is aborted when its timeout expires or when it is cancelled with cancelOperations.
+	 * @param instructions The instructions to compute, as (opcode, operand) pairs.
+	 * @param requestId The caller-chosen identifier used to cancel the call.
+	 * @param timeoutMs The time allowed to the call, in milliseconds, or 0 for no deadline.
+	 * @return Results, one per instruction.
+	 * @throws RejectedException If the instructions are rejected.
+	 * @throws CancelledException If the call was cancelled or its deadline passed.
+	 * @throws RemoteException If an exception occurred.
+	 */
+	@Override
+	public int[] doOperations(int[] instructions, long requestId, long timeoutMs)
+			throws RejectedException, CancelledException, RemoteException {
+		if (instructions.length % 2 != 0) {
+			throw new RemoteException("Invalid packed instructions length " + instructions.length);
+		}
+		admit(instructions.length / 2);
+		final CancellationToken token = new CancellationToken(timeoutMs);
+		calls.put(requestId, token);
+		try {
+			return compute(instructions, token);
+		}
+		catch (final CancellationException e) {
+			metrics.recordCancellation();
+			throw new CancelledException(token.getAbortReason());
+		}
+		finally {
+			calls.remove(requestId, token);
+			release(instructions.length / 2);
+		}
+	}
+
+	/**
+	 * Starts computing packed instructions asynchronously. 
+	 * Results are then collected with pollResults as they complete. 
+	 * The job fails when its timeout expires or when it is cancelled with cancelOperations.
+	 * @param instructions The instructions to compute, as (opcode, operand) pairs.
+	 * @param requestId The caller-chosen identifier used to cancel the job.
+	 * @param timeoutMs The time allowed to the job, in milliseconds, or 0 for no deadline.
+	 * @return The job identifier.
+	 * @throws RejectedException If the instructions are rejected.
+	 * @throws RemoteException If an exception occurred.
+	 */
+	@Override
+	public long submitOperations(int[] instructions, long requestId, long timeoutMs)
+			throws RejectedException, RemoteException {
+		if (instructions.length % 2 != 0) {
+			throw new RemoteException("Invalid packed instructions length " + instructions.length);
+		}
+		validate(instructions);
+		expireJobs();
+		final int blockSize = instructions.length / 2;
+		admit(blockSize);
+		final long jobId = nextJobId.incrementAndGet();
+		final StreamingJob job = new StreamingJob(blockSize);
+		final CancellationToken token = new CancellationToken(timeoutMs);
+		jobs.put(jobId, job);
+		calls.put(requestId, token);
+		pool.execute(() -> {
 			try {
-				operand = Integer.parseInt(operands[0]);
+				if (blockSize > 0) {
+					new BlockTask(instructions, new int[blockSize], 0, blockSize, token, job).invoke();
+				}
 			}
-			catch (final NumberFormatException e) {
-				throw new RemoteException(e.getMessage());
+			catch (final CancellationException e) {
+				metrics.recordCancellation();
+				job.fail(token.getAbortReason());
+			}
+			catch (final RuntimeException e) {
+				// Without an error, the missing results would pass for a completed job
+				job.fail("Computation failed: " + e);
+			}
+			finally {
+				calls.remove(requestId, token);
+				release(blockSize);
+				job.finish();
+			}
+		});
+		return jobId;
+	}
+
+	/**
+	 * Cancels a call of doOperations or submitOperations. 
+	 * Instructions not started yet are skipped and long operations are interrupted at their next check.
+	 * @param requestId The identifier given to the call.
+	 * @throws RemoteException If an exception occurred.
+	 */
+	@Override
+	public void cancelOperations(long requestId) throws RemoteException {
+		final CancellationToken token = calls.get(requestId);
+		if (token != null) {
+			token.cancel();
+		}
+	}
+
+	/**
+	 * Returns the results of a job completed since the previous poll. 
+	 * Waits up to specified timeout if none are available yet.
+	 * @param jobId The job identifier returned by submitOperations.
+	 * @param timeoutMs The maximum time to wait, in milliseconds.
+	 * @return The new results.
+	 * @throws RemoteException If the job is unknown or if an exception occurred.
+	 */
+	@Override
+	public PartialResults pollResults(long jobId, long timeoutMs) throws RemoteException {
+		final StreamingJob job = jobs.get(jobId);
+		if (job == null) {
+			throw new RemoteException("Unknown job " + jobId);
+		}
+		try {
+			final PartialResults results = job.poll(timeoutMs);
+			if (results.isDone()) {
+				jobs.remove(jobId);
+			}
+			return results;
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RemoteException("Poll interrupted");
+		}
+	}
+
+	/**
+	 * Forgets jobs that have not been polled for JOB_EXPIRY_MS, 
+	 * in case their caller disappeared.
+	 */
+	private void expireJobs() {
+		final long now = System.currentTimeMillis();
+		for (final Map.Entry<Long, StreamingJob> entry : jobs.entrySet()) {
+			final StreamingJob job = entry.getValue();
+			if (now - job.getLastAccessMs() > JOB_EXPIRY_MS) {
+				jobs.remove(entry.getKey(), job);
+			}
+		}
+	}
+
+	/**
+	 * Checks that all opcodes of packed instructions are supported.
+	 * @param packed The instructions, as (opcode, operand) pairs.
+	 * @throws RemoteException If an opcode is not supported.
+	 */
+	private void validate(final int[] packed) throws RemoteException {
+		try {
+			for (int i = 0; i < packed.length; i += 2) {
+				InstructionCodec.decode(packed[i]);
 			}
-			results.add(doOperation(getOperation(operation), operand));
+		}
+		catch (final IllegalArgumentException e) {
+			throw new RemoteException(e.getMessage());
+		}
+	}
+
+	/**
+	 * Computes a block of packed instructions in parallel on the server pool. 
+	 * Results keep the order of the instructions. 
+	 * False results are still decided independently for every instruction.
+	 * @param packed The instructions to compute, as (opcode, operand) pairs.
+	 * @param token The cancellation token of the call.
+	 * @return The result of each instruction.
+	 * @throws CancellationException If the call was cancelled or its deadline passed.
+	 * @throws RemoteException If an exception occurred.
+	 */
+	private int[] compute(final int[] packed, final CancellationToken token) throws RemoteException {
+		final int[] results = new int[packed.length / 2];
+		validate(packed);
+		if (results.length == 1) {
+			results[0] = compute(InstructionCodec.decode(packed[0]), packed[1], token);
+		}
+		else if (results.length > 1) {
+			pool.invoke(new BlockTask(packed, results, 0, results.length, token, null));
 		}
 		return results;
 	}
 
+	/**
+	 * A fork-join task computing a range of a packed block, split in halves down to single instructions.
+	 *
+	 */
+	private class BlockTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int[] packed;
+		private final int[] results;
+		private final int from;
+		private final int to;
+		private final CancellationToken token;
+		private final StreamingJob job;
+
+		/**
+		 * Constructor.
+		 * @param packed The instructions, as (opcode, operand) pairs.
+		 * @param results The results array to fill.
+		 * @param from The index of the first instruction (inclusive).
+		 * @param to The index of the last instruction (exclusive).
+		 * @param token The cancellation token of the call.
+		 * @param job (optional) The streaming job notified of every result.
+		 */
+		BlockTask(final int[] packed, final int[] results, final int from, final int to, final CancellationToken token,
+				final StreamingJob job) {
+			this.packed = packed;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+			this.token = token;
+			this.job = job;
+		}
+
+		/**
+		 * Computes the range.
+		 * @throws CancellationException If the call was cancelled or its deadline passed.
+		 */
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				results[from] = Server.this.compute(InstructionCodec.decode(packed[2 * from]), packed[2 * from + 1], token);
+				if (job != null) {
+					job.complete(from, results[from]);
+				}
+				return;
+			}
+			final int middle = (from + to) >>> 1;
+			invokeAll(new BlockTask(packed, results, from, middle, token, job),
+					new BlockTask(packed, results, middle, to, token, job));
+		}
+	}
+
 	/**
 	 * Computes the Pell number of specified operand.
 	 * @param operand The operand used to compute the Pell number.
@@ -217,11 +575,7 @@ public class Server implements ServerAPI {
 	 */
 	@Override
 	public int pell(final int operand) throws RemoteException {
-		if (isError()) {
-			return generateRandom4k();
-		}
-		// Using non-optimal implementation
-		return Operations.pell(operand);
+		return compute(Operation.PELL, operand, CancellationToken.NONE);
 	}
 
 	/**
@@ -232,11 +586,167 @@ public class Server implements ServerAPI {
 	 */
 	@Override
 	public int prime(final int operand) throws RemoteException {
+		return compute(Operation.PRIME, operand, CancellationToken.NONE);
+	}
+
+	/**
+	 * Computes an operation, or a false result based on specified rate, unless the call is aborted.
+	 * @param operation The operation.
+	 * @param operand The operand.
+	 * @param token The cancellation token of the call.
+	 * @return The result of the operation.
+	 * @throws CancellationException If the call was cancelled or its deadline passed.
+	 */
+	private int compute(final Operation operation, final int operand, final CancellationToken token) {
+		token.check();
 		if (isError()) {
+			metrics.recordFalseResult();
 			return generateRandom4k();
 		}
-		// Using non-optimal implementation
-		return Operations.prime(operand);
+		return coalesce(operation, operand, token);
+	}
+
+	/**
+	 * Computes an operation with the engine, sharing the computation with concurrent calls on the same operation and operand. 
+	 * False results are decided by the callers beforehand, so a shared result is always a true one. 
+	 * If the computing call is aborted, the calls sharing it compute the operation again.
+	 * @param operation The operation.
+	 * @param operand The operand.
+	 * @param token The cancellation token of the call.
+	 * @return The result of the operation.
+	 * @throws CancellationException If the call was cancelled or its deadline passed.
+	 */
+	private int coalesce(final Operation operation, final int operand, final CancellationToken token) {
+		if (!isCoalescing) {
+			return evaluate(operation, operand, token);
+		}
+		final long key = ((long) operation.ordinal() << 32) | (operand & 0xFFFFFFFFL);
+		while (true) {
+			final CompletableFuture<Integer> pending = new CompletableFuture<>();
+			final CompletableFuture<Integer> leader = computations.putIfAbsent(key, pending);
+			if (leader == null) {
+				try {
+					final int result = evaluate(operation, operand, token);
+					pending.complete(result);
+					return result;
+				}
+				catch (final RuntimeException e) {
+					pending.completeExceptionally(e);
+					throw e;
+				}
+				finally {
+					computations.remove(key, pending);
+				}
+			}
+			try {
+				final int result = leader.join();
+				metrics.recordCoalesced();
+				return result;
+			}
+			catch (final CancellationException e) {
+				// The computing call was aborted, compute again unless this call is aborted too
+				token.check();
+			}
+			catch (final CompletionException e) {
+				throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+			}
+		}
+	}
+
+	/**
+	 * Computes an operation with the engine once a capacity slot is free, and records its latency.
+	 * @param operation The operation.
+	 * @param operand The operand.
+	 * @param token The cancellation token of the call.
+	 * @return The result of the operation.
+	 * @throws CancellationException If the call was cancelled or its deadline passed.
+	 */
+	private int evaluate(final Operation operation, final int operand, final CancellationToken token) {
+		acquireComputeSlot(token);
+		try {
+			final long start = System.nanoTime();
+			final int result = operation == Operation.PELL ? engine.pell(operand, token) : engine.prime(operand, token);
+			metrics.recordOperation(operation, System.nanoTime() - start);
+			return result;
+		}
+		finally {
+			computeSlots.release();
+		}
+	}
+
+	/**
+	 * Waits in the queue until one of the capacity slots is free. 
+	 * The queue is bounded by admission, which never lets more than capacity plus queueLength instructions in. 
+	 * The wait is a managed block, so that the pool starts another worker instead of losing one to every waiting task.
+	 * @param token The cancellation token of the call, checked while waiting.
+	 * @throws CancellationException If the call was cancelled or its deadline passed while waiting.
+	 */
+	private void acquireComputeSlot(final CancellationToken token) {
+		try {
+			// Zero timeout rather than tryAcquire(), which would jump the queue
+			if (computeSlots.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+				return;
+			}
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted");
+		}
+		queued.incrementAndGet();
+		try {
+			ForkJoinPool.managedBlock(new SlotBlocker(token));
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted");
+		}
+		finally {
+			queued.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Waits for a capacity slot, checking the cancellation token of the call every SLOT_POLL_MS.
+	 *
+	 */
+	private class SlotBlocker implements ForkJoinPool.ManagedBlocker {
+
+		private final CancellationToken token;
+		private boolean isAcquired = false;
+
+		/**
+		 * Constructor.
+		 * @param token The cancellation token of the call.
+		 */
+		SlotBlocker(final CancellationToken token) {
+			this.token = token;
+		}
+
+		/**
+		 * Waits until a slot is acquired.
+		 * @return true, since no more waiting is needed once it returns.
+		 * @throws InterruptedException If interrupted while waiting.
+		 * @throws CancellationException If the call was cancelled or its deadline passed while waiting.
+		 */
+		@Override
+		public boolean block() throws InterruptedException {
+			while (!isAcquired) {
+				isAcquired = computeSlots.tryAcquire(SLOT_POLL_MS, TimeUnit.MILLISECONDS);
+				if (!isAcquired) {
+					token.check();
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Checks whether a slot is acquired.
+		 * @return true if the slot is acquired.
+		 */
+		@Override
+		public boolean isReleasable() {
+			return isAcquired;
+		}
 	}
 
 	/**
@@ -249,6 +759,16 @@ public class Server implements ServerAPI {
 		return capacity;
 	}
 
+	/**
+	 * Returns the current load of the server.
+	 * @return Server load.
+	 * @throws RemoteException If an exception occurred.
+	 */
+	@Override
+	public ServerLoad getLoad() throws RemoteException {
+		return new ServerLoad(capacity, queueLength, inFlight.get(), queued.get());
+	}
+
 	/**
 	 * Determines if next operation should return a false result based on specified false result rate.
 	 * @return true if next operation should return a false result.
@@ -260,7 +780,7 @@ public class Server implements ServerAPI {
 		if (falseResultRate == 100) {
 			return true;
 		}
-		return random.nextInt(100) < falseResultRate;
+		return ThreadLocalRandom.current().nextInt(100) < falseResultRate;
 	}
 
 	/**
@@ -268,36 +788,35 @@ public class Server implements ServerAPI {
 	 * @return A random number between 0 (inclusive) and 4000 (exclusive).
 	 */
 	private int generateRandom4k() {
-		return random.nextInt(4000);
+		return ThreadLocalRandom.current().nextInt(4000);
 	}
 
 	/**
-	 * Determines whether the instructions are accepted or not.
-	 * @param instructions The instructions to compute.
-	 * @return true if the instructions are accepted.
+	 * Admits a block of instructions if it fits in the free slots, 
+	 * which are the capacity plus the queue length minus the instructions in flight.
+	 * @param blockSize The number of instructions to compute.
+	 * @throws RejectedException If the block does not fit, with the number of free slots as suggested block size.
 	 */
-	private boolean accept(final ArrayList<String> instructions) {
-		final double rejectionRate = 0.2d * ((double) instructions.size() / capacity - 1.0d);
-		if (rejectionRate <= 0 || random.nextDouble() < rejectionRate) {
-			return true;
+	private void admit(final int blockSize) throws RejectedException {
+		metrics.recordBlock(blockSize);
+		while (true) {
+			final int current = inFlight.get();
+			final int freeSlots = capacity + queueLength - current;
+			if (blockSize > freeSlots) {
+				metrics.recordRejection();
+				throw new RejectedException("Too many operations", Math.max(freeSlots, 0));
+			}
+			if (inFlight.compareAndSet(current, current + blockSize)) {
+				return;
+			}
 		}
-		return false;
 	}
 
 	/**
-	 * Converts a String to a safe ServerAPI.Operation.
-	 * @param operation The input String to convert.
-	 * @return The corresponding ServerAPI.Operation.
-	 * @throws RemoteException If the input String cannot be converted or if an exception occurred.
+	 * Releases the slots of a completed block.
+	 * @param blockSize The number of instructions computed.
 	 */
-	private Operation getOperation(final String operation) throws RemoteException {
-		switch(operation) {
-			case "pell":
-				return Operation.PELL;
-			case "prime":
-				return Operation.PRIME;
-			default:
-				throw new RemoteException("Unsupported operation: \"" + operation + "\"");
-		}
+	private void release(final int blockSize) {
+		inFlight.addAndGet(-blockSize);
 	}
 }
@@ -36,7 +36,7 @@ public interface ServerAPI extends Remote {
 	/**
 	 * Computes an ArrayList of instructions and return corresponding results. 
 	 * Some results can be false based on specified rate. 
-	 * Some instructions can be rejected based on capacity and task volume.
+	 * Instructions are rejected when they do not fit in the free capacity and queue slots.
 	 * @param instructions The instructions to compute.
 	 * @return Results.
 	 * @throws RejectedException If the instructions are rejected.
@@ -44,6 +44,54 @@ public interface ServerAPI extends Remote {
 	 */
 	ArrayList<Integer> doOperations(ArrayList<String> instructions) throws RejectedException, RemoteException;
 
+	/**
+	 * Computes packed instructions and return corresponding results. 
+	 * Each instruction is an (opcode, operand) pair where the opcode is the Operation ordinal. 
+	 * Some results can be false based on specified rate. 
+	 * Instructions are rejected when they do not fit in the free capacity and queue slots. 
+	 * The computation is aborted when its timeout expires or when it is cancelled with cancelOperations.
+	 * @param instructions The instructions to compute, as (opcode, operand) pairs.
+	 * @param requestId The caller-chosen identifier used to cancel the call.
+	 * @param timeoutMs The time allowed to the call, in milliseconds, or 0 for no deadline.
+	 * @return Results, one per instruction.
+	 * @throws RejectedException If the instructions are rejected.
+	 * @throws CancelledException If the call was cancelled or its deadline passed.
+	 * @throws RemoteException If an exception occurred.
+	 */
+	int[] doOperations(int[] instructions, long requestId, long timeoutMs)
+			throws RejectedException, CancelledException, RemoteException;
+
+	/**
+	 * Starts computing packed instructions asynchronously. 
+	 * Results are then collected with pollResults as they complete. 
+	 * The job fails when its timeout expires or when it is cancelled with cancelOperations.
+	 * @param instructions The instructions to compute, as (opcode, operand) pairs.
+	 * @param requestId The caller-chosen identifier used to cancel the job.
+	 * @param timeoutMs The time allowed to the job, in milliseconds, or 0 for no deadline.
+	 * @return The job identifier.
+	 * @throws RejectedException If the instructions are rejected.
+	 * @throws RemoteException If an exception occurred.
+	 */
+	long submitOperations(int[] instructions, long requestId, long timeoutMs) throws RejectedException, RemoteException;
+
+	/**
+	 * Cancels a call of doOperations or submitOperations. 
+	 * Instructions not started yet are skipped and long operations are interrupted at their next check.
+	 * @param requestId The identifier given to the call.
+	 * @throws RemoteException If an exception occurred.
+	 */
+	void cancelOperations(long requestId) throws RemoteException;
+
+	/**
+	 * Returns the results of a job completed since the previous poll. 
+	 * Waits up to specified timeout if none are available yet.
+	 * @param jobId The job identifier returned by submitOperations.
+	 * @param timeoutMs The maximum time to wait, in milliseconds.
+	 * @return The new results.
+	 * @throws RemoteException If the job is unknown or if an exception occurred.
+	 */
+	PartialResults pollResults(long jobId, long timeoutMs) throws RemoteException;
+
 	/**
 	 * Computes the Pell number of specified operand.
 	 * @param operand The operand used to compute the Pell number.
@@ -66,4 +114,11 @@ public interface ServerAPI extends Remote {
 	 * @throws RemoteException If an exception occurred.
 	 */
 	int getCapacity() throws RemoteException;
+
+	/**
+	 * Returns the current load of the server: instructions computing, queued and free slots.
+	 * @return Server load.
+	 * @throws RemoteException If an exception occurred.
+	 */
+	ServerLoad getLoad() throws RemoteException;
 }
@@ -0,0 +1,71 @@
+package Server;
+import java.io.Serializable;
+
+/**
+ * A snapshot of a server's load.
+ *
+ */
+public class ServerLoad implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int capacity;
+	private final int queueLength;
+	private final int inFlight;
+	private final int queueDepth;
+
+	/**
+	 * Constructor.
+	 * @param capacity The number of instructions the server computes at once.
+	 * @param queueLength The number of instructions that can wait beyond the capacity.
+	 * @param inFlight The number of admitted instructions not yet completed.
+	 * @param queueDepth The number of instructions waiting for a computing slot.
+	 */
+	public ServerLoad(final int capacity, final int queueLength, final int inFlight, final int queueDepth) {
+		this.capacity = capacity;
+		this.queueLength = queueLength;
+		this.inFlight = inFlight;
+		this.queueDepth = queueDepth;
+	}
+
+	/**
+	 * Returns the server capacity.
+	 * @return The server capacity.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the number of admitted instructions not yet completed.
+	 * @return The number of instructions in flight.
+	 */
+	public int getInFlight() {
+		return inFlight;
+	}
+
+	/**
+	 * Returns the number of instructions waiting for one of the capacity slots to compute.
+	 * @return The queue depth.
+	 */
+	public int getQueueDepth() {
+		return queueDepth;
+	}
+
+	/**
+	 * Returns the largest block size the server would currently accept.
+	 * @return The number of free slots.
+	 */
+	public int getFreeSlots() {
+		return Math.max(capacity + queueLength - inFlight, 0);
+	}
+
+	/**
+	 * Returns a printable summary of the load.
+	 * @return The summary.
+	 */
+	@Override
+	public String toString() {
+		return "inFlight=" + inFlight + " queued=" + getQueueDepth() + " free=" + getFreeSlots();
+	}
+}
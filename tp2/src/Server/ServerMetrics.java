@@ -0,0 +1,262 @@
+package Server;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Server metrics: per-operation counters and latencies, block sizes, rejections and in-flight instructions. 
+ * They are exposed as an MBean and can be summarized periodically on the standard output.
+ *
+ */
+public class ServerMetrics implements ServerMetricsMBean {
+
+	// Constants
+	public static final String OBJECT_NAME = "Server:type=ServerMetrics";
+
+	// Member variables
+	private final AtomicInteger inFlight;
+	private final AtomicLong blockCount = new AtomicLong();
+	private final AtomicLong rejectionCount = new AtomicLong();
+	private final AtomicLong falseResultCount = new AtomicLong();
+	private final AtomicLong cancellationCount = new AtomicLong();
+	private final AtomicLong coalescedCount = new AtomicLong();
+	private final LatencyHistogram pellLatency = new LatencyHistogram();
+	private final LatencyHistogram primeLatency = new LatencyHistogram();
+	private final LatencyHistogram blockSizes = new LatencyHistogram();
+
+	/**
+	 * Constructor.
+	 * @param inFlight The server counter of instructions in flight.
+	 */
+	public ServerMetrics(final AtomicInteger inFlight) {
+		this.inFlight = inFlight;
+	}
+
+	/**
+	 * Registers the metrics in the platform MBean server.
+	 * @throws JMException If the registration failed.
+	 */
+	public void register() throws JMException {
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+	}
+
+	/**
+	 * Prints a throughput summary at a fixed rate, from a daemon thread.
+	 * @param intervalMs The interval between summaries, in milliseconds.
+	 */
+	public void startPeriodicLog(final long intervalMs) {
+		final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			final Thread thread = new Thread(runnable, "metrics-log");
+			thread.setDaemon(true);
+			return thread;
+		});
+		final long[] previous = new long[3];
+		scheduler.scheduleAtFixedRate(() -> {
+			final long blocks = blockCount.get();
+			final long operations = pellLatency.getCount() + primeLatency.getCount();
+			final long rejections = rejectionCount.get();
+			final double seconds = intervalMs / 1000.0d;
+			System.out.println(String.format(
+					"[metrics] %.1f ops/s, %.1f blocks/s, %d rejected, %d in flight, pell p99 < %.0f us, prime p99 < %.0f us",
+					(operations - previous[0]) / seconds, (blocks - previous[1]) / seconds,
+					rejections - previous[2], inFlight.get(), getPellP99LatencyUs(), getPrimeP99LatencyUs()));
+			previous[0] = operations;
+			previous[1] = blocks;
+			previous[2] = rejections;
+		}, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Records a received block.
+	 * @param blockSize The number of instructions of the block.
+	 */
+	public void recordBlock(final int blockSize) {
+		blockCount.incrementAndGet();
+		blockSizes.record(blockSize);
+	}
+
+	/**
+	 * Records a rejected block.
+	 */
+	public void recordRejection() {
+		rejectionCount.incrementAndGet();
+	}
+
+	/**
+	 * Records a call aborted by a cancellation or a deadline.
+	 */
+	public void recordCancellation() {
+		cancellationCount.incrementAndGet();
+	}
+
+	/**
+	 * Records an injected false result.
+	 */
+	public void recordFalseResult() {
+		falseResultCount.incrementAndGet();
+	}
+
+	/**
+	 * Records an operation answered by a concurrent identical computation.
+	 */
+	public void recordCoalesced() {
+		coalescedCount.incrementAndGet();
+	}
+
+	/**
+	 * Records the latency of an operation.
+	 * @param operation The operation.
+	 * @param latencyNs The latency, in nanoseconds.
+	 */
+	public void recordOperation(final ServerAPI.Operation operation, final long latencyNs) {
+		switch (operation) {
+			case PELL:
+				pellLatency.record(latencyNs);
+				break;
+			case PRIME:
+				primeLatency.record(latencyNs);
+				break;
+		}
+	}
+
+	/**
+	 * Returns the number of blocks received, accepted or not.
+	 * @return The number of blocks received, accepted or not.
+	 */
+	@Override
+	public long getBlockCount() {
+		return blockCount.get();
+	}
+
+	/**
+	 * Returns the number of blocks rejected by admission control.
+	 * @return The number of blocks rejected by admission control.
+	 */
+	@Override
+	public long getRejectionCount() {
+		return rejectionCount.get();
+	}
+
+	/**
+	 * Returns the number of calls aborted by a cancellation or a deadline.
+	 * @return The number of calls aborted by a cancellation or a deadline.
+	 */
+	@Override
+	public long getCancellationCount() {
+		return cancellationCount.get();
+	}
+
+	/**
+	 * Returns the number of instructions admitted and not yet completed.
+	 * @return The number of instructions admitted and not yet completed.
+	 */
+	@Override
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	/**
+	 * Returns the number of false results injected.
+	 * @return The number of false results injected.
+	 */
+	@Override
+	public long getFalseResultCount() {
+		return falseResultCount.get();
+	}
+
+	/**
+	 * Returns the number of operations answered by a concurrent identical computation.
+	 * @return The number of operations answered by a concurrent identical computation.
+	 */
+	@Override
+	public long getCoalescedCount() {
+		return coalescedCount.get();
+	}
+
+	/**
+	 * Returns the number of pell operations computed.
+	 * @return The number of pell operations computed.
+	 */
+	@Override
+	public long getPellCount() {
+		return pellLatency.getCount();
+	}
+
+	/**
+	 * Returns the mean pell latency, in microseconds.
+	 * @return The mean pell latency, in microseconds.
+	 */
+	@Override
+	public double getPellMeanLatencyUs() {
+		return pellLatency.getMean() / 1000.0d;
+	}
+
+	/**
+	 * Returns the 99th percentile pell latency upper bound, in microseconds.
+	 * @return The 99th percentile pell latency upper bound, in microseconds.
+	 */
+	@Override
+	public double getPellP99LatencyUs() {
+		return pellLatency.getPercentile(99.0d) / 1000.0d;
+	}
+
+	/**
+	 * Returns the pell latency histogram, bucket i for [2^i, 2^(i+1)) nanoseconds.
+	 * @return The pell latency histogram, bucket i for [2^i, 2^(i+1)) nanoseconds.
+	 */
+	@Override
+	public long[] getPellLatencyHistogram() {
+		return pellLatency.getBuckets();
+	}
+
+	/**
+	 * Returns the number of prime operations computed.
+	 * @return The number of prime operations computed.
+	 */
+	@Override
+	public long getPrimeCount() {
+		return primeLatency.getCount();
+	}
+
+	/**
+	 * Returns the mean prime latency, in microseconds.
+	 * @return The mean prime latency, in microseconds.
+	 */
+	@Override
+	public double getPrimeMeanLatencyUs() {
+		return primeLatency.getMean() / 1000.0d;
+	}
+
+	/**
+	 * Returns the 99th percentile prime latency upper bound, in microseconds.
+	 * @return The 99th percentile prime latency upper bound, in microseconds.
+	 */
+	@Override
+	public double getPrimeP99LatencyUs() {
+		return primeLatency.getPercentile(99.0d) / 1000.0d;
+	}
+
+	/**
+	 * Returns the prime latency histogram, bucket i for [2^i, 2^(i+1)) nanoseconds.
+	 * @return The prime latency histogram, bucket i for [2^i, 2^(i+1)) nanoseconds.
+	 */
+	@Override
+	public long[] getPrimeLatencyHistogram() {
+		return primeLatency.getBuckets();
+	}
+
+	/**
+	 * Returns the block size histogram, bucket i for [2^i, 2^(i+1)) instructions.
+	 * @return The block size histogram, bucket i for [2^i, 2^(i+1)) instructions.
+	 */
+	@Override
+	public long[] getBlockSizeHistogram() {
+		return blockSizes.getBuckets();
+	}
+}
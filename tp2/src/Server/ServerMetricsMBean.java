@@ -0,0 +1,98 @@
+package Server;
+
+/**
+ * The JMX management interface of the server metrics.
+ *
+ */
+public interface ServerMetricsMBean {
+
+	/**
+	 * Returns the number of blocks received, accepted or not.
+	 * @return The number of blocks received, accepted or not.
+	 */
+	long getBlockCount();
+
+	/**
+	 * Returns the number of blocks rejected by admission control.
+	 * @return The number of blocks rejected by admission control.
+	 */
+	long getRejectionCount();
+
+	/**
+	 * Returns the number of calls aborted by a cancellation or a deadline.
+	 * @return The number of calls aborted by a cancellation or a deadline.
+	 */
+	long getCancellationCount();
+
+	/**
+	 * Returns the number of instructions admitted and not yet completed.
+	 * @return The number of instructions admitted and not yet completed.
+	 */
+	int getInFlight();
+
+	/**
+	 * Returns the number of false results injected.
+	 * @return The number of false results injected.
+	 */
+	long getFalseResultCount();
+
+	/**
+	 * Returns the number of operations answered by a concurrent identical computation.
+	 * @return The number of operations answered by a concurrent identical computation.
+	 */
+	long getCoalescedCount();
+
+	/**
+	 * Returns the number of pell operations computed.
+	 * @return The number of pell operations computed.
+	 */
+	long getPellCount();
+
+	/**
+	 * Returns the mean pell latency, in microseconds.
+	 * @return The mean pell latency, in microseconds.
+	 */
+	double getPellMeanLatencyUs();
+
+	/**
+	 * Returns the 99th percentile pell latency upper bound, in microseconds.
+	 * @return The 99th percentile pell latency upper bound, in microseconds.
+	 */
+	double getPellP99LatencyUs();
+
+	/**
+	 * Returns the pell latency histogram, bucket i for [2^i, 2^(i+1)) nanoseconds.
+	 * @return The pell latency histogram, bucket i for [2^i, 2^(i+1)) nanoseconds.
+	 */
+	long[] getPellLatencyHistogram();
+
+	/**
+	 * Returns the number of prime operations computed.
+	 * @return The number of prime operations computed.
+	 */
+	long getPrimeCount();
+
+	/**
+	 * Returns the mean prime latency, in microseconds.
+	 * @return The mean prime latency, in microseconds.
+	 */
+	double getPrimeMeanLatencyUs();
+
+	/**
+	 * Returns the 99th percentile prime latency upper bound, in microseconds.
+	 * @return The 99th percentile prime latency upper bound, in microseconds.
+	 */
+	double getPrimeP99LatencyUs();
+
+	/**
+	 * Returns the prime latency histogram, bucket i for [2^i, 2^(i+1)) nanoseconds.
+	 * @return The prime latency histogram, bucket i for [2^i, 2^(i+1)) nanoseconds.
+	 */
+	long[] getPrimeLatencyHistogram();
+
+	/**
+	 * Returns the block size histogram, bucket i for [2^i, 2^(i+1)) instructions.
+	 * @return The block size histogram, bucket i for [2^i, 2^(i+1)) instructions.
+	 */
+	long[] getBlockSizeHistogram();
+}
@@ -0,0 +1,97 @@
+package Server;
+import java.util.Arrays;
+
+/**
+ * A block of instructions computed asynchronously, whose results are collected as they complete.
+ *
+ */
+class StreamingJob {
+
+	// Member variables
+	private final int[] completionOrder;
+	private final int[] results;
+	private int completed = 0;
+	private int delivered = 0;
+	private boolean finished = false;
+	private String error = null;
+	private long lastAccessMs = System.currentTimeMillis();
+
+	/**
+	 * Constructor.
+	 * @param size The number of instructions of the block.
+	 */
+	StreamingJob(final int size) {
+		completionOrder = new int[size];
+		results = new int[size];
+	}
+
+	/**
+	 * Records the result of an instruction.
+	 * @param index The index of the instruction in the block.
+	 * @param result The result.
+	 */
+	synchronized void complete(final int index, final int result) {
+		results[index] = result;
+		completionOrder[completed++] = index;
+		notifyAll();
+	}
+
+	/**
+	 * Marks the job as failed. Results completed so far are still delivered.
+	 * @param message The error message.
+	 */
+	synchronized void fail(final String message) {
+		if (error == null) {
+			error = message;
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Marks the job as finished: no other result will be recorded.
+	 */
+	synchronized void finish() {
+		finished = true;
+		notifyAll();
+	}
+
+	/**
+	 * Returns the results completed since the previous poll, 
+	 * waiting up to specified timeout if there are none yet.
+	 * @param timeoutMs The maximum time to wait, in milliseconds.
+	 * @return The new results.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	synchronized PartialResults poll(final long timeoutMs) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + timeoutMs;
+		long remaining = timeoutMs;
+		while (delivered == completed && !finished && remaining > 0) {
+			wait(remaining);
+			remaining = deadline - System.currentTimeMillis();
+		}
+		final int[] indices = Arrays.copyOfRange(completionOrder, delivered, completed);
+		final int[] values = new int[indices.length];
+		for (int i = 0; i < indices.length; ++i) {
+			values[i] = results[indices[i]];
+		}
+		delivered = completed;
+		lastAccessMs = System.currentTimeMillis();
+		return new PartialResults(indices, values, isDone(), error);
+	}
+
+	/**
+	 * Checks whether all results have been delivered.
+	 * @return true if the job is finished and nothing is left to deliver.
+	 */
+	synchronized boolean isDone() {
+		return finished && delivered == completed;
+	}
+
+	/**
+	 * Returns the time of the last poll, or of the creation if never polled.
+	 * @return The time, in milliseconds.
+	 */
+	synchronized long getLastAccessMs() {
+		return lastAccessMs;
+	}
+}